@@ -0,0 +1,12 @@
+# Rules that are applied to applications using this library.
+
+# Generated JSON adapters are found by name of model class (see JsonAdapters), so both should keep their names.
+-keepnames @org.roboswag.components.requests.JsonModel class *
+-keep class **$$JsonAdapter {
+    <init>();
+}
+
+# Fields of models are read and written by google-http-client reflection if model has no generated adapter.
+-keepclassmembers class * {
+    @com.google.api.client.util.Key <fields>;
+}
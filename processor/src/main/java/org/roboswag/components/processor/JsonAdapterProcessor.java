@@ -0,0 +1,417 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates reflection-free JsonAdapter for each class annotated with org.roboswag.components.requests.JsonModel.
+ * Adapter reads and writes fields annotated with com.google.api.client.util.Key.
+ * Supported field types are String, boxed and primitive int, long, double, float, boolean, other JsonModels and Lists of them.
+ * Numbers of fields annotated with com.google.api.client.json.JsonString are written as JSON strings like reflection parser does.
+ * Models with other fields are skipped with warning so they are parsed with reflection.
+ */
+@SupportedAnnotationTypes(JsonAdapterProcessor.JSON_MODEL_ANNOTATION)
+public class JsonAdapterProcessor extends AbstractProcessor {
+
+    static final String JSON_MODEL_ANNOTATION = "org.roboswag.components.requests.JsonModel";
+    private static final String KEY_ANNOTATION = "com.google.api.client.util.Key";
+    private static final String JSON_STRING_ANNOTATION = "com.google.api.client.json.JsonString";
+    private static final String KEY_DEFAULT_NAME = "##default";
+    private static final String ADAPTER_SUFFIX = "$$JsonAdapter";
+    private static final String ADAPTERS_CLASS = "org.roboswag.components.requests.JsonAdapters";
+
+    private static final Map<String, String> VALUE_ADAPTERS = new LinkedHashMap<>();
+    private static final Map<String, String> JSON_STRING_ADAPTERS = new LinkedHashMap<>();
+
+    static {
+        VALUE_ADAPTERS.put("java.lang.String", "STRING");
+        VALUE_ADAPTERS.put("java.lang.Integer", "INTEGER");
+        VALUE_ADAPTERS.put("java.lang.Long", "LONG");
+        VALUE_ADAPTERS.put("java.lang.Double", "DOUBLE");
+        VALUE_ADAPTERS.put("java.lang.Float", "FLOAT");
+        VALUE_ADAPTERS.put("java.lang.Boolean", "BOOLEAN");
+        JSON_STRING_ADAPTERS.put("java.lang.Integer", "INTEGER_AS_STRING");
+        JSON_STRING_ADAPTERS.put("java.lang.Long", "LONG_AS_STRING");
+        JSON_STRING_ADAPTERS.put("java.lang.Double", "DOUBLE_AS_STRING");
+        JSON_STRING_ADAPTERS.put("java.lang.Float", "FLOAT_AS_STRING");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+        final Map<String, Model> models = new LinkedHashMap<>();
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    final TypeElement typeElement = (TypeElement) element;
+                    models.put(typeElement.getQualifiedName().toString(), new Model(typeElement));
+                }
+            }
+        }
+        for (final Model model : models.values()) {
+            collectFields(model, models);
+        }
+        excludeModelsWithUnsupportedReferences(models);
+        for (final Model model : models.values()) {
+            if (model.unsupportedReason != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "JsonAdapter is not generated, model will be parsed with reflection: " + model.unsupportedReason, model.element);
+            } else {
+                generateAdapter(model);
+            }
+        }
+        return true;
+    }
+
+    private void collectFields(final Model model, final Map<String, Model> models) {
+        final TypeElement element = model.element;
+        if (element.getModifiers().contains(Modifier.ABSTRACT) || element.getModifiers().contains(Modifier.PRIVATE)) {
+            model.unsupportedReason = "model should not be abstract or private";
+            return;
+        }
+        if (element.getNestingKind() != NestingKind.TOP_LEVEL
+                && (element.getNestingKind() != NestingKind.MEMBER || !element.getModifiers().contains(Modifier.STATIC))) {
+            model.unsupportedReason = "nested model should be static";
+            return;
+        }
+        if (!hasAccessibleConstructor(element)) {
+            model.unsupportedReason = "model should have non-private constructor without parameters";
+            return;
+        }
+        final String modelPackage = getPackageName(element);
+        TypeElement currentElement = element;
+        while (currentElement != null && !Object.class.getName().equals(currentElement.getQualifiedName().toString())) {
+            final boolean isSamePackage = modelPackage.equals(getPackageName(currentElement));
+            for (final VariableElement field : ElementFilter.fieldsIn(currentElement.getEnclosedElements())) {
+                final String jsonName = getKeyName(field);
+                if (jsonName == null || field.getModifiers().contains(Modifier.STATIC) || model.hasField(jsonName)) {
+                    continue;
+                }
+                if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)
+                        || (!isSamePackage && !field.getModifiers().contains(Modifier.PUBLIC))) {
+                    model.unsupportedReason = "field " + field.getSimpleName() + " should be accessible from model package and not final";
+                    return;
+                }
+                final Field modelField = createField(field, jsonName, models);
+                if (modelField == null) {
+                    model.unsupportedReason = "type of field " + field.getSimpleName() + " is not supported: " + field.asType();
+                    return;
+                }
+                model.fields.add(modelField);
+            }
+            final TypeMirror superclass = currentElement.getSuperclass();
+            currentElement = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+    }
+
+    private boolean hasAccessibleConstructor(final TypeElement element) {
+        for (final ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getKeyName(final VariableElement field) {
+        for (final AnnotationMirror annotationMirror : field.getAnnotationMirrors()) {
+            final TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (!KEY_ANNOTATION.equals(annotationElement.getQualifiedName().toString())) {
+                continue;
+            }
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                if ("value".equals(entry.getKey().getSimpleName().toString())) {
+                    final String value = entry.getValue().getValue().toString();
+                    return KEY_DEFAULT_NAME.equals(value) ? field.getSimpleName().toString() : value;
+                }
+            }
+            return field.getSimpleName().toString();
+        }
+        return null;
+    }
+
+    private boolean hasAnnotation(final VariableElement field, final String annotationName) {
+        for (final AnnotationMirror annotationMirror : field.getAnnotationMirrors()) {
+            if (annotationName.equals(((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Field createField(final VariableElement field, final String jsonName, final Map<String, Model> models) {
+        final TypeMirror type = field.asType();
+        final String fieldName = field.getSimpleName().toString();
+        // reflection parser writes such numbers as strings, other types with this annotation are left to reflection
+        final Map<String, String> valueAdapters = hasAnnotation(field, JSON_STRING_ANNOTATION) ? JSON_STRING_ADAPTERS : VALUE_ADAPTERS;
+        if (type.getKind().isPrimitive()) {
+            final String boxedName = processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()))
+                    .getQualifiedName().toString();
+            final String adapter = valueAdapters.get(boxedName);
+            return adapter != null && !"java.lang.String".equals(boxedName)
+                    ? new Field(fieldName, jsonName, ADAPTERS_CLASS + "." + adapter, boxedName, false, null)
+                    : null;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final DeclaredType declaredType = (DeclaredType) type;
+        final String typeName = ((TypeElement) declaredType.asElement()).getQualifiedName().toString();
+        if (List.class.getName().equals(typeName)) {
+            if (declaredType.getTypeArguments().size() != 1) {
+                return null;
+            }
+            final TypeMirror elementType = declaredType.getTypeArguments().get(0);
+            final String elementAdapter = getValueAdapter(elementType, valueAdapters, models);
+            return elementAdapter != null
+                    ? new Field(fieldName, jsonName, elementAdapter, null, true, getReferencedModel(elementType, models))
+                    : null;
+        }
+        final String adapter = getValueAdapter(type, valueAdapters, models);
+        return adapter != null ? new Field(fieldName, jsonName, adapter, null, false, getReferencedModel(type, models)) : null;
+    }
+
+    private String getReferencedModel(final TypeMirror type, final Map<String, Model> models) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final String typeName = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        return models.containsKey(typeName) ? typeName : null;
+    }
+
+    private String getValueAdapter(final TypeMirror type, final Map<String, String> valueAdapters, final Map<String, Model> models) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        final TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+        final String typeName = typeElement.getQualifiedName().toString();
+        final String valueAdapter = valueAdapters.get(typeName);
+        if (valueAdapter != null) {
+            return ADAPTERS_CLASS + "." + valueAdapter;
+        }
+        final Model model = valueAdapters == VALUE_ADAPTERS ? models.get(typeName) : null;
+        return model != null ? getAdapterQualifiedName(model.element) + ".INSTANCE" : null;
+    }
+
+    private void excludeModelsWithUnsupportedReferences(final Map<String, Model> models) {
+        boolean isChanged = true;
+        while (isChanged) {
+            isChanged = false;
+            for (final Model model : models.values()) {
+                if (model.unsupportedReason != null) {
+                    continue;
+                }
+                for (final Field field : model.fields) {
+                    if (field.referencedModel != null && models.get(field.referencedModel).unsupportedReason != null) {
+                        model.unsupportedReason = "field " + field.name + " references model without JsonAdapter: " + field.referencedModel;
+                        isChanged = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private String getPackageName(final TypeElement element) {
+        return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+    }
+
+    private String getAdapterSimpleName(final TypeElement element) {
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(element).toString();
+        final String packageName = getPackageName(element);
+        return (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + ADAPTER_SUFFIX;
+    }
+
+    private String getAdapterQualifiedName(final TypeElement element) {
+        final String packageName = getPackageName(element);
+        return packageName.isEmpty() ? getAdapterSimpleName(element) : packageName + "." + getAdapterSimpleName(element);
+    }
+
+    private void generateAdapter(final Model model) {
+        final String packageName = getPackageName(model.element);
+        final String adapterName = getAdapterSimpleName(model.element);
+        final String modelName = model.element.getQualifiedName().toString();
+        final StringBuilder source = new StringBuilder();
+        source.append("// Generated by ").append(JsonAdapterProcessor.class.getSimpleName()).append(". Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n");
+        }
+        source.append('\n')
+                .append("public final class ").append(adapterName)
+                .append(" implements org.roboswag.components.requests.JsonAdapter<").append(modelName).append("> {\n\n")
+                .append("    public static final ").append(adapterName).append(" INSTANCE = new ").append(adapterName).append("();\n\n");
+
+        source.append("    @Override\n")
+                .append("    public ").append(modelName).append(" read(final com.google.api.client.json.JsonParser parser) throws java.io.IOException {\n")
+                .append("        if (parser.getCurrentToken() == com.google.api.client.json.JsonToken.VALUE_NULL) {\n")
+                .append("            return null;\n")
+                .append("        }\n")
+                .append("        if (parser.getCurrentToken() != com.google.api.client.json.JsonToken.START_OBJECT) {\n")
+                .append("            throw new IllegalArgumentException(\"Expected JSON object for ").append(modelName)
+                .append(" but was \" + parser.getCurrentToken());\n")
+                .append("        }\n")
+                .append("        final ").append(modelName).append(" result = new ").append(modelName).append("();\n")
+                .append("        while (parser.nextToken() == com.google.api.client.json.JsonToken.FIELD_NAME) {\n")
+                .append("            final String name = parser.getCurrentName();\n")
+                .append("            parser.nextToken();\n")
+                .append("            switch (name) {\n");
+        for (final Field field : model.fields) {
+            source.append("                case ").append(toLiteral(field.jsonName)).append(":\n");
+            if (field.isList) {
+                source.append("                    result.").append(field.name).append(" = ").append(ADAPTERS_CLASS)
+                        .append(".readList(parser, ").append(field.adapter).append(");\n");
+            } else if (field.boxedPrimitive != null) {
+                source.append("                    final ").append(field.boxedPrimitive).append(' ').append(field.name).append("Value = ")
+                        .append(field.adapter).append(".read(parser);\n")
+                        .append("                    if (").append(field.name).append("Value != null) {\n")
+                        .append("                        result.").append(field.name).append(" = ").append(field.name).append("Value;\n")
+                        .append("                    }\n");
+            } else {
+                source.append("                    result.").append(field.name).append(" = ").append(field.adapter).append(".read(parser);\n");
+            }
+            source.append("                    break;\n");
+        }
+        source.append("                default:\n")
+                .append("                    parser.skipChildren();\n")
+                .append("                    break;\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return result;\n")
+                .append("    }\n\n");
+
+        source.append("    @Override\n")
+                .append("    public void write(final com.google.api.client.json.JsonGenerator generator, final ").append(modelName)
+                .append(" value) throws java.io.IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            generator.writeNull();\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("        generator.writeStartObject();\n");
+        for (final Field field : model.fields) {
+            final String indent = field.boxedPrimitive != null ? "        " : "            ";
+            if (field.boxedPrimitive == null) {
+                source.append("        if (value.").append(field.name).append(" != null) {\n");
+            }
+            source.append(indent).append("generator.writeFieldName(").append(toLiteral(field.jsonName)).append(");\n");
+            if (field.isList) {
+                source.append(indent).append(ADAPTERS_CLASS).append(".writeList(generator, value.").append(field.name)
+                        .append(", ").append(field.adapter).append(");\n");
+            } else {
+                source.append(indent).append(field.adapter).append(".write(generator, value.").append(field.name).append(");\n");
+            }
+            if (field.boxedPrimitive == null) {
+                source.append("        }\n");
+            }
+        }
+        source.append("        generator.writeEndObject();\n")
+                .append("    }\n\n")
+                .append("}\n");
+
+        try {
+            final Writer writer = processingEnv.getFiler()
+                    .createSourceFile(getAdapterQualifiedName(model.element), model.element).openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (final IOException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Can't write JsonAdapter: " + exception.getMessage(), model.element);
+        }
+    }
+
+    private static String toLiteral(final String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static class Model {
+
+        private final TypeElement element;
+        private final List<Field> fields = new ArrayList<>();
+        private String unsupportedReason;
+
+        public Model(final TypeElement element) {
+            this.element = element;
+        }
+
+        public boolean hasField(final String jsonName) {
+            for (final Field field : fields) {
+                if (field.jsonName.equals(jsonName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    private static class Field {
+
+        private final String name;
+        private final String jsonName;
+        private final String adapter;
+        private final String boxedPrimitive;
+        private final boolean isList;
+        private final String referencedModel;
+
+        public Field(final String name, final String jsonName, final String adapter, final String boxedPrimitive,
+                     final boolean isList, final String referencedModel) {
+            this.name = name;
+            this.jsonName = jsonName;
+            this.adapter = adapter;
+            this.boxedPrimitive = boxedPrimitive;
+            this.isList = isList;
+            this.referencedModel = referencedModel;
+        }
+
+    }
+
+}
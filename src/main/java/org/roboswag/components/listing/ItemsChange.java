@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.listing;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Structural change of items of {@link ItemsProvider}: range of items is inserted, changed or removed.
+ * Also holds size of provider right after change so consumers could check that they haven't missed any change.
+ */
+public class ItemsChange {
+
+    @NonNull
+    public static ItemsChange inserted(final int positionStart, final int itemCount, final int newSize) {
+        return new ItemsChange(Type.INSERTED, positionStart, itemCount, newSize);
+    }
+
+    @NonNull
+    public static ItemsChange changed(final int positionStart, final int itemCount, final int newSize) {
+        return new ItemsChange(Type.CHANGED, positionStart, itemCount, newSize);
+    }
+
+    @NonNull
+    public static ItemsChange removed(final int positionStart, final int itemCount, final int newSize) {
+        return new ItemsChange(Type.REMOVED, positionStart, itemCount, newSize);
+    }
+
+    @NonNull
+    private final Type type;
+    private final int positionStart;
+    private final int itemCount;
+    private final int newSize;
+
+    public ItemsChange(@NonNull final Type type, final int positionStart, final int itemCount, final int newSize) {
+        this.type = type;
+        this.positionStart = positionStart;
+        this.itemCount = itemCount;
+        this.newSize = newSize;
+    }
+
+    @NonNull
+    public Type getType() {
+        return type;
+    }
+
+    public int getPositionStart() {
+        return positionStart;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /* Returns size of provider after this change */
+    public int getNewSize() {
+        return newSize;
+    }
+
+    /* Returns size of provider before this change */
+    public int getOldSize() {
+        switch (type) {
+            case INSERTED:
+                return newSize - itemCount;
+            case REMOVED:
+                return newSize + itemCount;
+            default:
+                return newSize;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return type + " " + itemCount + " items from " + positionStart + ", new size " + newSize;
+    }
+
+    public enum Type {
+        INSERTED,
+        CHANGED,
+        REMOVED
+    }
+
+}
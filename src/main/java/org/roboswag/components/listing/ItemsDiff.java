@@ -0,0 +1,200 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.listing;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculates minimal list of changes that turns old list of items into new one by Myers diff algorithm in linear space.
+ * Items are matched by identity, matched items with different content are reported as changed. Moves are reported as removal and insertion.
+ * Calculation could take time for large lists so it should be done on background thread.
+ */
+public final class ItemsDiff {
+
+    /**
+     * Calculates changes of items.
+     *
+     * @param oldItems   Old list of items;
+     * @param newItems   New list of items;
+     * @param comparator Comparator of identities and contents of items;
+     * @return Changes in order of applying with positions relative to list after previous changes.
+     */
+    @NonNull
+    public static <T> List<ItemsChange> calculate(@NonNull final List<T> oldItems, @NonNull final List<T> newItems,
+                                                  @NonNull final ItemsComparator<T> comparator) {
+        final List<int[]> snakes = new ArrayList<>();
+        new Matcher<>(oldItems, newItems, comparator, snakes).match(0, oldItems.size(), 0, newItems.size());
+        snakes.add(new int[]{oldItems.size(), newItems.size(), 0});
+
+        final List<ItemsChange> result = new ArrayList<>();
+        int size = oldItems.size();
+        int oldPosition = 0;
+        int newPosition = 0;
+        for (final int[] snake : snakes) {
+            final int removedCount = snake[0] - oldPosition;
+            if (removedCount > 0) {
+                size -= removedCount;
+                result.add(ItemsChange.removed(newPosition, removedCount, size));
+            }
+            final int insertedCount = snake[1] - newPosition;
+            if (insertedCount > 0) {
+                size += insertedCount;
+                result.add(ItemsChange.inserted(newPosition, insertedCount, size));
+            }
+            int changedStart = -1;
+            for (int i = 0; i <= snake[2]; i++) {
+                final boolean isChanged = i < snake[2] && !comparator.areContentsTheSame(oldItems.get(snake[0] + i), newItems.get(snake[1] + i));
+                if (isChanged && changedStart < 0) {
+                    changedStart = snake[1] + i;
+                } else if (!isChanged && changedStart >= 0) {
+                    result.add(ItemsChange.changed(changedStart, snake[1] + i - changedStart, size));
+                    changedStart = -1;
+                }
+            }
+            oldPosition = snake[0] + snake[2];
+            newPosition = snake[1] + snake[2];
+        }
+        return result;
+    }
+
+    private ItemsDiff() {
+    }
+
+    public interface ItemsComparator<T> {
+
+        /* Returns true if items represent same entity, e.g. have same id */
+        boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+        /* Returns true if same items have same content, so their views shouldn't be rebound */
+        boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+    }
+
+    /* Finds diagonals of matched items ordered by position. Each diagonal is {old position, new position, length} */
+    private static class Matcher<T> {
+
+        @NonNull
+        private final List<T> oldItems;
+        @NonNull
+        private final List<T> newItems;
+        @NonNull
+        private final ItemsComparator<T> comparator;
+        @NonNull
+        private final List<int[]> snakes;
+
+        public Matcher(@NonNull final List<T> oldItems, @NonNull final List<T> newItems,
+                       @NonNull final ItemsComparator<T> comparator, @NonNull final List<int[]> snakes) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.comparator = comparator;
+            this.snakes = snakes;
+        }
+
+        private boolean isSame(final int oldPosition, final int newPosition) {
+            return comparator.areItemsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+        }
+
+        public void match(final int oldStart, final int oldEnd, final int newStart, final int newEnd) {
+            int prefix = 0;
+            while (oldStart + prefix < oldEnd && newStart + prefix < newEnd && isSame(oldStart + prefix, newStart + prefix)) {
+                prefix++;
+            }
+            if (prefix > 0) {
+                snakes.add(new int[]{oldStart, newStart, prefix});
+            }
+            int suffix = 0;
+            while (oldEnd - suffix > oldStart + prefix && newEnd - suffix > newStart + prefix
+                    && isSame(oldEnd - suffix - 1, newEnd - suffix - 1)) {
+                suffix++;
+            }
+            final int oldFrom = oldStart + prefix;
+            final int oldTo = oldEnd - suffix;
+            final int newFrom = newStart + prefix;
+            final int newTo = newEnd - suffix;
+            if (oldFrom < oldTo && newFrom < newTo) {
+                final int[] middleSnake = findMiddleSnake(oldFrom, oldTo, newFrom, newTo);
+                match(oldFrom, middleSnake[0], newFrom, middleSnake[1]);
+                if (middleSnake[2] > 0) {
+                    snakes.add(middleSnake);
+                }
+                match(middleSnake[0] + middleSnake[2], oldTo, middleSnake[1] + middleSnake[2], newTo);
+            }
+            if (suffix > 0) {
+                snakes.add(new int[]{oldTo, newTo, suffix});
+            }
+        }
+
+        /* Returns middle diagonal of shortest edit path in absolute positions. Ranges should have different first and last items */
+        @NonNull
+        private int[] findMiddleSnake(final int oldStart, final int oldEnd, final int newStart, final int newEnd) {
+            final int oldSize = oldEnd - oldStart;
+            final int newSize = newEnd - newStart;
+            final int max = (oldSize + newSize + 1) / 2;
+            final int delta = oldSize - newSize;
+            final boolean isDeltaOdd = delta % 2 != 0;
+            final int[] forward = new int[2 * max + 2];
+            final int[] backward = new int[2 * max + 2];
+            final int offset = max;
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+            for (int d = 0; d <= max; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                            ? forward[offset + k + 1]
+                            : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    final int startX = x;
+                    final int startY = y;
+                    while (x < oldSize && y < newSize && isSame(oldStart + x, newStart + y)) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    final int backwardK = delta - k;
+                    if (isDeltaOdd && backwardK >= -(d - 1) && backwardK <= d - 1 && x + backward[offset + backwardK] >= oldSize) {
+                        return new int[]{oldStart + startX, newStart + startY, x - startX};
+                    }
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])
+                            ? backward[offset + k + 1]
+                            : backward[offset + k - 1] + 1;
+                    int y = x - k;
+                    final int startX = x;
+                    while (x < oldSize && y < newSize && isSame(oldEnd - x - 1, newEnd - y - 1)) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    final int forwardK = delta - k;
+                    if (!isDeltaOdd && forwardK >= -d && forwardK <= d && x + forward[offset + forwardK] >= oldSize) {
+                        return new int[]{oldEnd - x, newEnd - y, x - startX};
+                    }
+                }
+            }
+            throw new IllegalStateException("Middle snake not found");
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@
 
 package org.roboswag.components.listing;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import rx.Observable;
@@ -36,4 +37,16 @@ public interface ItemsProvider<T> {
 
     int getSize();
 
+    /* Called by adapter on binding of item at position. Providers could start loading of items ahead of it */
+    void onItemBound(int position);
+
+    /**
+     * Returns observable of structural changes of items. Change is emitted after size and items are changed,
+     * so consumers which cache size (like adapters) should update it only by changes.
+     *
+     * @return Observable of changes.
+     */
+    @NonNull
+    Observable<ItemsChange> observeChanges();
+
 }
@@ -27,6 +27,7 @@ import org.roboswag.core.utils.ShouldNotHappenException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import rx.Observable;
@@ -43,6 +44,11 @@ public class ListProvider<T> implements ItemsProvider<T> {
         items = new ArrayList<>(collection);
     }
 
+    @NonNull
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
     @Nullable
     @Override
     public T getItem(final int position) {
@@ -60,4 +66,17 @@ public class ListProvider<T> implements ItemsProvider<T> {
         return items.size();
     }
 
+    /* All items are already in list so there is nothing to load ahead */
+    @Override
+    public void onItemBound(final int position) {
+        // do nothing
+    }
+
+    /* Items of list are never changed */
+    @NonNull
+    @Override
+    public Observable<ItemsChange> observeChanges() {
+        return Observable.empty();
+    }
+
 }
@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.listing;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Snapshot of statistics of pages of {@link PagingListProvider} that is limited by {@link PageMemoryBudget}.
+ */
+public class PageEvictionStats {
+
+    private final int loadedPagesCount;
+    private final long loadedBytes;
+    private final long evictedPagesCount;
+    private final long reloadedPagesCount;
+
+    public PageEvictionStats(final int loadedPagesCount, final long loadedBytes, final long evictedPagesCount, final long reloadedPagesCount) {
+        this.loadedPagesCount = loadedPagesCount;
+        this.loadedBytes = loadedBytes;
+        this.evictedPagesCount = evictedPagesCount;
+        this.reloadedPagesCount = reloadedPagesCount;
+    }
+
+    public int getLoadedPagesCount() {
+        return loadedPagesCount;
+    }
+
+    /* Returns estimated size of loaded items or 0 if budget has no estimator */
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    public long getEvictedPagesCount() {
+        return evictedPagesCount;
+    }
+
+    /* Returns count of evicted pages that were loaded again */
+    public long getReloadedPagesCount() {
+        return reloadedPagesCount;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "loaded " + loadedPagesCount + " pages (" + loadedBytes + " bytes), evicted " + evictedPagesCount
+                + ", reloaded " + reloadedPagesCount;
+    }
+
+}
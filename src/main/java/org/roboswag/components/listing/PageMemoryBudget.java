@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.listing;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Memory budget of loaded pages of {@link PagingListProvider}: max count of pages or max estimated size of items in bytes.
+ * If budget is exceeded then least recently used pages far from visible window are evicted and reloaded on demand.
+ */
+public class PageMemoryBudget<T> {
+
+    /* Returns budget limited by count of loaded pages */
+    @NonNull
+    public static <T> PageMemoryBudget<T> ofPages(final int maxPagesCount) {
+        return new PageMemoryBudget<>(maxPagesCount, Long.MAX_VALUE, null);
+    }
+
+    /* Returns budget limited by estimated size of loaded items */
+    @NonNull
+    public static <T> PageMemoryBudget<T> ofBytes(final long maxBytes, @NonNull final ItemSizeEstimator<T> itemSizeEstimator) {
+        return new PageMemoryBudget<>(Integer.MAX_VALUE, maxBytes, itemSizeEstimator);
+    }
+
+    private final int maxPagesCount;
+    private final long maxBytes;
+    @Nullable
+    private final ItemSizeEstimator<T> itemSizeEstimator;
+
+    public PageMemoryBudget(final int maxPagesCount, final long maxBytes, @Nullable final ItemSizeEstimator<T> itemSizeEstimator) {
+        this.maxPagesCount = maxPagesCount;
+        this.maxBytes = maxBytes;
+        this.itemSizeEstimator = itemSizeEstimator;
+    }
+
+    /* Returns estimated size of items of page or 0 if there is no estimator */
+    public long estimateBytes(@NonNull final List<T> items) {
+        if (itemSizeEstimator == null) {
+            return 0;
+        }
+        long result = 0;
+        for (final T item : items) {
+            if (item != null) {
+                result += itemSizeEstimator.estimateBytes(item);
+            }
+        }
+        return result;
+    }
+
+    public boolean isExceeded(final int pagesCount, final long bytes) {
+        return pagesCount > maxPagesCount || bytes > maxBytes;
+    }
+
+    public interface ItemSizeEstimator<T> {
+
+        long estimateBytes(@NonNull T item);
+
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.listing;
+
+/**
+ * Policy of prefetching of pages of {@link PagingListProvider} that is fed by bound positions of adapter.
+ * Scroll direction and velocity are measured by bound positions, latency is measured by loaded pages.
+ * Prefetch distance is count of pages that user could scroll through during one page loading, bounded by min and max distance.
+ */
+public class PagePrefetchPolicy {
+
+    private static final double SMOOTHING_FACTOR = 0.3;
+    private static final long IDLE_TIMEOUT_MILLIS = 1000;
+
+    private final int minDistancePages;
+    private final int maxDistancePages;
+    private final Object lock = new Object();
+    private int lastPosition = -1;
+    private long lastBoundTimeMillis;
+    private double itemsPerMillis;
+    private double pageLatencyMillis;
+    private boolean isScrollingBackward;
+
+    /**
+     * @param minDistancePages Min count of pages to prefetch ahead of bound position. 0 disables prefetching when user is not scrolling;
+     * @param maxDistancePages Max count of pages to prefetch ahead of bound position.
+     */
+    public PagePrefetchPolicy(final int minDistancePages, final int maxDistancePages) {
+        this.minDistancePages = minDistancePages;
+        this.maxDistancePages = maxDistancePages;
+    }
+
+    /* Records bound position of adapter to measure scroll direction and velocity */
+    public void onItemBound(final int position) {
+        synchronized (lock) {
+            final long now = System.currentTimeMillis();
+            if (lastPosition >= 0 && position != lastPosition) {
+                final long elapsedMillis = now - lastBoundTimeMillis;
+                if (elapsedMillis > IDLE_TIMEOUT_MILLIS) {
+                    itemsPerMillis = 0;
+                } else if (elapsedMillis > 0) {
+                    final double currentItemsPerMillis = (double) Math.abs(position - lastPosition) / elapsedMillis;
+                    itemsPerMillis = itemsPerMillis * (1 - SMOOTHING_FACTOR) + currentItemsPerMillis * SMOOTHING_FACTOR;
+                }
+                isScrollingBackward = position < lastPosition;
+            }
+            lastPosition = position;
+            lastBoundTimeMillis = now;
+        }
+    }
+
+    /* Records latency of page loading */
+    public void onPageLoaded(final long latencyMillis) {
+        synchronized (lock) {
+            pageLatencyMillis = pageLatencyMillis > 0
+                    ? pageLatencyMillis * (1 - SMOOTHING_FACTOR) + latencyMillis * SMOOTHING_FACTOR
+                    : latencyMillis;
+        }
+    }
+
+    public boolean isScrollingBackward() {
+        synchronized (lock) {
+            return isScrollingBackward;
+        }
+    }
+
+    /* Returns count of pages to prefetch in scroll direction */
+    public int getDistancePages(final int pageSize) {
+        synchronized (lock) {
+            final int pagesDuringLoading = (int) Math.ceil(itemsPerMillis * pageLatencyMillis / pageSize);
+            return Math.max(minDistancePages, Math.min(maxDistancePages, pagesDuringLoading));
+        }
+    }
+
+}
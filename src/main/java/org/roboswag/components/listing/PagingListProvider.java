@@ -22,26 +22,36 @@ package org.roboswag.components.listing;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 
 import org.roboswag.core.log.Lc;
 import org.roboswag.core.utils.ShouldNotHappenException;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import rx.Observable;
 import rx.functions.Function;
 import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
 
 /**
  * Created by Gavriil Sitnikov on 07/12/2015.
- * TODO: fill description
+ * Provider of items that are loaded by pages.
+ * In sequential mode pages are loaded one after another and size is count of loaded items plus one not loaded item.
+ * In random access mode size is total count of items from first loaded page and any page could be loaded independently,
+ * so not loaded items are placeholders.
  */
 public class PagingListProvider<T> implements ItemsProvider<T> {
 
     private static final int PAGE_SIZE = 25;
+    private static final int DEFAULT_MIN_PREFETCH_DISTANCE_PAGES = 1;
+    private static final int DEFAULT_MAX_PREFETCH_DISTANCE_PAGES = 4;
+    private static final int EVICTION_PROTECTED_DISTANCE_PAGES = DEFAULT_MAX_PREFETCH_DISTANCE_PAGES;
 
     private final SparseArray<List<T>> loadedPages = new SparseArray<>();
     private boolean isInitialized;
@@ -53,24 +63,58 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
     @Nullable
     private Integer totalCount;
 
+    private final boolean isRandomAccess;
+    private final SparseArray<Observable<List<T>>> loadingPages = new SparseArray<>();
+    private final Subject<ItemsChange, ItemsChange> changesSubject = PublishSubject.<ItemsChange>create().toSerialized();
+    @Nullable
+    private PagePrefetchPolicy prefetchPolicy = new PagePrefetchPolicy(DEFAULT_MIN_PREFETCH_DISTANCE_PAGES, DEFAULT_MAX_PREFETCH_DISTANCE_PAGES);
+
+    @Nullable
+    private PageMemoryBudget<T> memoryBudget;
+    // estimated sizes of loaded pages in order from least recently used
+    private final Map<Integer, Long> pagesUsage = new LinkedHashMap<>(16, 0.75f, true);
+    private final SparseBooleanArray evictedPages = new SparseBooleanArray();
+    private int lastAccessedPage;
+    private long loadedBytes;
+    private long evictedPagesCount;
+    private long reloadedPagesCount;
+
     private final Object lock = new Object();
 
     public PagingListProvider(@NonNull final PageRequestCreator<T> pageRequestCreator) {
+        this(pageRequestCreator, false);
+    }
+
+    /**
+     * @param pageRequestCreator Creator of requests of pages;
+     * @param isRandomAccess     If true then pages are loaded independently. Pages should have total count,
+     *                           else provider falls back to sequential loading.
+     */
+    public PagingListProvider(@NonNull final PageRequestCreator<T> pageRequestCreator, final boolean isRandomAccess) {
         this.pageRequestCreator = pageRequestCreator;
+        this.isRandomAccess = isRandomAccess;
     }
 
     @Nullable
     @Override
     public T getItem(final int position) {
         synchronized (lock) {
-            final List<T> page = loadedPages.get(position / PAGE_SIZE);
-            return page != null ? page.get(position % PAGE_SIZE) : null;
+            final int pageIndex = position / PAGE_SIZE;
+            if (pageIndex != lastAccessedPage) {
+                lastAccessedPage = pageIndex;
+                pagesUsage.get(pageIndex);
+            }
+            final List<T> page = loadedPages.get(pageIndex);
+            return page != null && position % PAGE_SIZE < page.size() ? page.get(position % PAGE_SIZE) : null;
         }
     }
 
     @Override
     public int getSize() {
         synchronized (lock) {
+            if (isSparse()) {
+                return totalCount;
+            }
             return maxLoadedPage != null
                     ? maxLoadedPage * PAGE_SIZE + loadedPages.get(maxLoadedPage).size() + (isLastPageLoaded ? 0 : 1)
                     : 0;
@@ -80,17 +124,168 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
     public Observable<Integer> initialize() {
         synchronized (lock) {
             isInitialized = false;
+            // pages that are loading now are dropped on loading as they could be from previous state of list
+            loadingPages.clear();
         }
         return initialize(0);
     }
 
+    /* Sets policy of prefetching of pages around bound positions. Null disables prefetching */
+    public void setPrefetchPolicy(@Nullable final PagePrefetchPolicy prefetchPolicy) {
+        synchronized (lock) {
+            this.prefetchPolicy = prefetchPolicy;
+        }
+    }
+
+    /**
+     * Sets memory budget of loaded pages. If it is exceeded then least recently used pages far from last accessed position are evicted,
+     * so their items become not loaded and are reloaded on demand. Null budget means that pages are never evicted.
+     * Eviction is not emitted as change so rows that are still bound keep their items, evicted items are shown as not loaded
+     * only when they are bound again.
+     *
+     * @param memoryBudget Budget of loaded pages.
+     */
+    public void setMemoryBudget(@Nullable final PageMemoryBudget<T> memoryBudget) {
+        synchronized (lock) {
+            this.memoryBudget = memoryBudget;
+            loadedBytes = 0;
+            for (final Map.Entry<Integer, Long> entry : pagesUsage.entrySet()) {
+                final long bytes = memoryBudget != null ? memoryBudget.estimateBytes(loadedPages.get(entry.getKey())) : 0;
+                entry.setValue(bytes);
+                loadedBytes += bytes;
+            }
+            trimToBudget();
+        }
+    }
+
+    @NonNull
+    public PageEvictionStats getEvictionStats() {
+        synchronized (lock) {
+            return new PageEvictionStats(loadedPages.size(), loadedBytes, evictedPagesCount, reloadedPagesCount);
+        }
+    }
+
+    /* Changes are emitted on loading threads */
+    @NonNull
+    @Override
+    public Observable<ItemsChange> observeChanges() {
+        return changesSubject;
+    }
+
+    /**
+     * Starts loading of pages ahead of bound position in scroll direction before they become visible.
+     * Count of pages depends on scroll velocity and latency of loading.
+     *
+     * @param position Bound position.
+     */
+    @Override
+    public void onItemBound(final int position) {
+        final List<Integer> pagesToLoad = new ArrayList<>();
+        synchronized (lock) {
+            if (prefetchPolicy == null || !isInitialized) {
+                return;
+            }
+            prefetchPolicy.onItemBound(position);
+            final int distance = prefetchPolicy.getDistancePages(PAGE_SIZE);
+            final int step = prefetchPolicy.isScrollingBackward() ? -1 : 1;
+            for (int i = 1; i <= distance; i++) {
+                final int index = position / PAGE_SIZE + step * i;
+                if (isPrefetchable(index)) {
+                    pagesToLoad.add(index);
+                }
+            }
+        }
+        for (final Integer index : pagesToLoad) {
+            loadPage(index).subscribe(ignored -> {
+            }, throwable -> Lc.d("Prefetch of page %s failed: %s", index, throwable));
+        }
+    }
+
+    /* Returns true if page is not loaded and could be loaded now. Sequential mode allows only next page. Should be called under lock */
+    private boolean isPrefetchable(final int index) {
+        if (index < 0 || loadedPages.get(index) != null || loadingPages.get(index) != null) {
+            return false;
+        }
+        if (isSparse()) {
+            return index * PAGE_SIZE < totalCount;
+        }
+        return maxLoadedPage != null && (index < maxLoadedPage || !isLastPageLoaded && index == maxLoadedPage + 1);
+    }
+
+    /* Puts page to loaded pages. Pages should be trimmed to budget after state is updated. Should be called under lock */
+    private void putPage(final int index, @NonNull final List<T> pageItems) {
+        loadedPages.put(index, pageItems);
+        final long bytes = memoryBudget != null ? memoryBudget.estimateBytes(pageItems) : 0;
+        final Long previousBytes = pagesUsage.put(index, bytes);
+        loadedBytes += bytes - (previousBytes != null ? previousBytes : 0);
+        if (evictedPages.get(index)) {
+            evictedPages.delete(index);
+            reloadedPagesCount++;
+        }
+    }
+
+    /* Should be called under lock */
+    private void clearPages() {
+        loadedPages.clear();
+        loadingPages.clear();
+        pagesUsage.clear();
+        evictedPages.clear();
+        loadedBytes = 0;
+    }
+
+    /* Evicts least recently used pages that are far from last accessed page while budget is exceeded.
+     * Last page of sequential mode is never evicted as size depends on it. Should be called under lock */
+    private void trimToBudget() {
+        if (memoryBudget == null) {
+            return;
+        }
+        final Iterator<Map.Entry<Integer, Long>> iterator = pagesUsage.entrySet().iterator();
+        while (memoryBudget.isExceeded(pagesUsage.size(), loadedBytes) && iterator.hasNext()) {
+            final Map.Entry<Integer, Long> entry = iterator.next();
+            final int index = entry.getKey();
+            if (Math.abs(index - lastAccessedPage) <= EVICTION_PROTECTED_DISTANCE_PAGES
+                    || (!isSparse() && maxLoadedPage != null && index == maxLoadedPage)) {
+                continue;
+            }
+            iterator.remove();
+            loadedPages.remove(index);
+            loadedBytes -= entry.getValue();
+            evictedPages.put(index, true);
+            evictedPagesCount++;
+        }
+    }
+
+    /* Returns true if provider is in random access mode and knows total count of items. Should be called under lock */
+    private boolean isSparse() {
+        return isRandomAccess && totalCount != null;
+    }
+
     public Observable<Integer> initialize(final int loadToPosition) {
         synchronized (lock) {
             if (isInitialized) {
-                return Observable.just(isLastPageLoaded ? getSize() : getSize() - 1);
+                return Observable.just(isLastPageLoaded || isSparse() ? getSize() : getSize() - 1);
             }
+            lastAccessedPage = loadToPosition / PAGE_SIZE;
         }
 
+        if (isRandomAccess) {
+            final int pageIndex = loadToPosition / PAGE_SIZE;
+            return pageRequestCreator.call(pageIndex * PAGE_SIZE, PAGE_SIZE)
+                    .first()
+                    .subscribeOn(Schedulers.io())
+                    .flatMap(page -> {
+                        if (page.getTotalCount() != null) {
+                            return Observable.just(pageInitializedSparseMap(pageIndex, page));
+                        }
+                        // without total count items are stored from start of list so page is requested again from start
+                        return pageIndex == 0 ? Observable.just(pageInitializedMap(page)) : initializeSequentially(loadToPosition);
+                    });
+        }
+        return initializeSequentially(loadToPosition);
+    }
+
+    @NonNull
+    private Observable<Integer> initializeSequentially(final int loadToPosition) {
         final int itemsToLoad = loadToPosition / PAGE_SIZE + PAGE_SIZE;
         return pageRequestCreator.call(0, itemsToLoad)
                 .first()
@@ -100,7 +295,8 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
 
     private int pageInitializedMap(@NonNull final Page<T> page) {
         synchronized (lock) {
-            loadedPages.clear();
+            final int oldSize = getSize();
+            clearPages();
             isInitialized = true;
             totalCount = page.getTotalCount();
             final Iterator<T> iterator = page.getItems().iterator();
@@ -110,7 +306,7 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
                 pageToAdd.add(iterator.next());
                 index++;
                 if (index % PAGE_SIZE == 0) {
-                    loadedPages.put((index - 1) / PAGE_SIZE, pageToAdd);
+                    putPage((index - 1) / PAGE_SIZE, pageToAdd);
                     pageToAdd = new ArrayList<>(PAGE_SIZE);
                 }
             }
@@ -120,17 +316,64 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
                 maxLoadedPage = null;
                 isLastPageLoaded = true;
             } else if (!pageToAdd.isEmpty()) {
-                loadedPages.put(maxLoadedPage, pageToAdd);
+                putPage(maxLoadedPage, pageToAdd);
                 isLastPageLoaded = pageToAdd.size() < PAGE_SIZE;
             } else {
                 maxLoadedPage--;
                 isLastPageLoaded = true;
             }
+            notifyChanged(0, Math.max(oldSize, getSize()), oldSize);
+            trimToBudget();
             return isLastPageLoaded ? getSize() : getSize() - 1;
         }
     }
 
-    //TODO: nearest pages + preloading + observable for items collection changes
+    private int pageInitializedSparseMap(final int index, @NonNull final Page<T> page) {
+        synchronized (lock) {
+            final int oldSize = getSize();
+            clearPages();
+            isInitialized = true;
+            totalCount = page.getTotalCount();
+            maxLoadedPage = null;
+            isLastPageLoaded = false;
+            putSparsePage(index, page);
+            notifyChanged(0, Math.max(oldSize, getSize()), oldSize);
+            trimToBudget();
+            return getSize();
+        }
+    }
+
+    /* Puts page in random access mode and fixes total count if page shows that it is changed. Should be called under lock */
+    @NonNull
+    private List<T> putSparsePage(final int index, @NonNull final Page<T> page) {
+        final List<T> pageItems = page.getItems().size() <= PAGE_SIZE
+                ? new ArrayList<>(page.getItems())
+                : new ArrayList<>(page.getItems()).subList(0, PAGE_SIZE);
+        if (page.getTotalCount() != null) {
+            totalCount = page.getTotalCount();
+        }
+        if (pageItems.size() < PAGE_SIZE && totalCount != null && totalCount > index * PAGE_SIZE + pageItems.size()) {
+            totalCount = index * PAGE_SIZE + pageItems.size();
+        }
+        maxLoadedPage = maxLoadedPage != null ? Math.max(maxLoadedPage, index) : index;
+        putPage(index, pageItems);
+        return pageItems;
+    }
+
+    /* Emits change of range of items and change of size after it. Should be called under lock */
+    private void notifyChanged(final int positionStart, final int itemCount, final int oldSize) {
+        final int newSize = getSize();
+        final int changedCount = Math.min(positionStart + itemCount, Math.min(oldSize, newSize)) - positionStart;
+        if (changedCount > 0) {
+            changesSubject.onNext(ItemsChange.changed(positionStart, changedCount, oldSize));
+        }
+        if (newSize > oldSize) {
+            changesSubject.onNext(ItemsChange.inserted(oldSize, newSize - oldSize, newSize));
+        } else if (newSize < oldSize) {
+            changesSubject.onNext(ItemsChange.removed(newSize, oldSize - newSize, newSize));
+        }
+    }
+
     @Override
     public Observable loadItem(final int position) {
         synchronized (lock) {
@@ -142,22 +385,69 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
         return loadPage(position / PAGE_SIZE);
     }
 
+    @SuppressWarnings("unchecked")
     private Observable loadPage(final int index) {
-        final List<T> loadedPage;
         synchronized (lock) {
-            loadedPage = loadedPages.get(index);
+            final List<T> loadedPage = loadedPages.get(index);
+            if (loadedPage != null) {
+                return Observable.just(loadedPage);
+            }
+            Observable<List<T>> loadingPage = loadingPages.get(index);
+            if (loadingPage == null) {
+                final Observable<List<T>>[] holder = new Observable[1];
+                final long[] startTimeMillis = new long[1];
+                holder[0] = pageRequestCreator.call(index * PAGE_SIZE, PAGE_SIZE)
+                        .first()
+                        .doOnSubscribe(() -> startTimeMillis[0] = System.currentTimeMillis())
+                        .subscribeOn(Schedulers.io())
+                        .map(page -> onPageLoaded(index, holder[0], page, System.currentTimeMillis() - startTimeMillis[0]))
+                        .doOnTerminate(() -> onPageLoadingFinished(index, holder[0]))
+                        .doOnUnsubscribe(() -> onPageLoadingFinished(index, holder[0]))
+                        .replay(1)
+                        .refCount();
+                loadingPage = holder[0];
+                loadingPages.put(index, loadingPage);
+            }
+            return loadingPage;
+        }
+    }
+
+    private void onPageLoadingFinished(final int index, @NonNull final Observable<List<T>> loadingPage) {
+        synchronized (lock) {
+            if (loadingPages.get(index) == loadingPage) {
+                loadingPages.remove(index);
+            }
         }
-        return loadedPage != null
-                ? Observable.just(loadedPage)
-                : pageRequestCreator.call(index * PAGE_SIZE, PAGE_SIZE)
-                .first()
-                .subscribeOn(Schedulers.io())
-                .map(page -> onPageLoaded(index, page));
     }
 
     //TODO: if something loaded or if loaded emty with index=999
-    private Collection<T> onPageLoaded(final int index, @NonNull final Page<T> page) {
+    private List<T> onPageLoaded(final int index, @NonNull final Observable<List<T>> loadingPage, @NonNull final Page<T> page,
+                                 final long latencyMillis) {
         synchronized (lock) {
+            if (loadingPages.get(index) != loadingPage) {
+                // provider was initialized again while page was loading
+                return new ArrayList<>(page.getItems());
+            }
+            if (prefetchPolicy != null) {
+                prefetchPolicy.onPageLoaded(latencyMillis);
+            }
+            final int oldSize = getSize();
+            if (isSparse()) {
+                final List<T> pageItems = putSparsePage(index, page);
+                notifyChanged(index * PAGE_SIZE, PAGE_SIZE, oldSize);
+                trimToBudget();
+                return pageItems;
+            }
+            if (maxLoadedPage != null && index <= maxLoadedPage) {
+                // reloading of evicted page
+                final List<T> pageItems = page.getItems().size() <= PAGE_SIZE
+                        ? new ArrayList<>(page.getItems())
+                        : new ArrayList<>(page.getItems()).subList(0, PAGE_SIZE);
+                putPage(index, pageItems);
+                notifyChanged(index * PAGE_SIZE, PAGE_SIZE, oldSize);
+                trimToBudget();
+                return pageItems;
+            }
             if (maxLoadedPage == null || maxLoadedPage != index - 1) {
                 throw new ShouldNotHappenException("Loaded page index is illegal: " + index + " but not " + maxLoadedPage + 1);
             }
@@ -166,11 +456,13 @@ public class PagingListProvider<T> implements ItemsProvider<T> {
                     ? new ArrayList<>(page.getItems())
                     : new ArrayList<>(page.getItems()).subList(0, PAGE_SIZE);
             maxLoadedPage++;
-            loadedPages.put(index, pageItems);
+            putPage(index, pageItems);
             if (pageItems.size() < PAGE_SIZE
                     || (maxLoadedPage != null && totalCount != null && maxLoadedPage * PAGE_SIZE + pageItems.size() >= totalCount)) {
                 isLastPageLoaded = true;
             }
+            notifyChanged(oldSize - 1, PAGE_SIZE + 1, oldSize);
+            trimToBudget();
             return pageItems;
         }
     }
@@ -29,6 +29,8 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import org.roboswag.components.R;
+import org.roboswag.components.listing.ItemsChange;
+import org.roboswag.components.listing.ItemsDiff;
 import org.roboswag.components.listing.ItemsProvider;
 import org.roboswag.components.listing.ListProvider;
 import org.roboswag.components.utils.UiUtils;
@@ -37,8 +39,10 @@ import org.roboswag.core.utils.ShouldNotHappenException;
 
 import java.util.List;
 
+import rx.Observable;
 import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.schedulers.Schedulers;
 
 /**
  * Created by Gavriil Sitnikov on 20/11/2015.
@@ -55,16 +59,134 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
     private OnItemClickListener<TItem> onItemClickListener;
     @Nullable
     private ItemsProvider<TItem> itemsProvider;
+    @Nullable
+    private Subscription changesSubscription;
+    private int attachedRecyclerViewsCount;
+    // size of items that adapter was notified about, provider could be already changed on background thread
+    private int itemsCount;
+    @Nullable
+    private Subscription diffSubscription;
+    // provider that is set after diff calculation is finished
+    @Nullable
+    private ItemsProvider<TItem> diffTargetProvider;
+    // areItemsTheSame or areContentsTheSame failed once so items are set without diff to not fail on each setItems
+    private boolean isDiffFailed;
+    private final ItemsDiff.ItemsComparator<TItem> itemsComparator = new ItemsDiff.ItemsComparator<TItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull final TItem oldItem, @NonNull final TItem newItem) {
+            return AbstractItemsAdapter.this.areItemsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull final TItem oldItem, @NonNull final TItem newItem) {
+            return AbstractItemsAdapter.this.areContentsTheSame(oldItem, newItem);
+        }
+    };
 
+    /**
+     * Sets list of items. If previous items were also set by list then changes between lists are calculated on background thread
+     * by {@link #areItemsTheSame} and {@link #areContentsTheSame} and adapter is notified only about changed items.
+     * If new items are set during calculation then its result is dropped.
+     * If adapter is not attached to RecyclerView then items are set without calculation.
+     * If calculation failed (e.g. comparison threw exception) then it is reported once and next items are set without calculation.
+     *
+     * @param items Items to show.
+     */
     public void setItems(@NonNull final List<TItem> items) {
-        setItemsProvider(new ListProvider<>(items));
+        final ListProvider<TItem> newProvider = new ListProvider<>(items);
+        if (!(itemsProvider instanceof ListProvider) || attachedRecyclerViewsCount == 0 || isDiffFailed) {
+            setItemsProvider(newProvider);
+            return;
+        }
+        cancelDiff();
+        diffTargetProvider = newProvider;
+        @SuppressWarnings("unchecked")
+        final List<TItem> oldItems = ((ListProvider<TItem>) itemsProvider).getItems();
+        diffSubscription = Observable.defer(() -> Observable.just(ItemsDiff.calculate(oldItems, newProvider.getItems(), itemsComparator)))
+                .subscribeOn(Schedulers.computation())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(changes -> {
+                    diffSubscription = null;
+                    diffTargetProvider = null;
+                    subscribeItemsProvider(newProvider);
+                    for (final ItemsChange change : changes) {
+                        onItemsChanged(change);
+                    }
+                }, throwable -> {
+                    isDiffFailed = true;
+                    Lc.assertion(throwable);
+                    setItemsProvider(newProvider);
+                });
     }
 
     public void setItemsProvider(@NonNull final ItemsProvider<TItem> itemsProvider) {
-        this.itemsProvider = itemsProvider;
+        cancelDiff();
+        subscribeItemsProvider(itemsProvider);
+        itemsCount = itemsProvider.getSize();
         notifyDataSetChanged();
     }
 
+    /* Changes of provider are observed only while adapter is attached to RecyclerView */
+    private void subscribeItemsProvider(@NonNull final ItemsProvider<TItem> itemsProvider) {
+        this.itemsProvider = itemsProvider;
+        unsubscribeItemsProvider();
+        if (attachedRecyclerViewsCount > 0) {
+            changesSubscription = itemsProvider.observeChanges()
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribe(this::onItemsChanged);
+        }
+    }
+
+    private void unsubscribeItemsProvider() {
+        if (changesSubscription != null) {
+            changesSubscription.unsubscribe();
+            changesSubscription = null;
+        }
+    }
+
+    private void cancelDiff() {
+        if (diffSubscription != null) {
+            diffSubscription.unsubscribe();
+            diffSubscription = null;
+        }
+        diffTargetProvider = null;
+    }
+
+    /* Returns true if items represent same entity. Used to calculate changes of items set by list */
+    protected boolean areItemsTheSame(@NonNull final TItem oldItem, @NonNull final TItem newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    /* Returns true if same items have same content. Used to calculate changes of items set by list */
+    protected boolean areContentsTheSame(@NonNull final TItem oldItem, @NonNull final TItem newItem) {
+        return oldItem.equals(newItem);
+    }
+
+    private void onItemsChanged(@NonNull final ItemsChange change) {
+        if (change.getOldSize() != itemsCount) {
+            // change was made before adapter got size of provider or some change was missed
+            itemsCount = change.getNewSize();
+            notifyDataSetChanged();
+            return;
+        }
+        itemsCount = change.getNewSize();
+        switch (change.getType()) {
+            case INSERTED:
+                notifyItemRangeInserted(change.getPositionStart(), change.getItemCount());
+                break;
+            case CHANGED:
+                notifyItemRangeChanged(change.getPositionStart(), change.getItemCount());
+                break;
+            case REMOVED:
+                notifyItemRangeRemoved(change.getPositionStart(), change.getItemCount());
+                break;
+            default:
+                Lc.assertion(new ShouldNotHappenException("Unknown type of change: " + change.getType()));
+                notifyDataSetChanged();
+                break;
+        }
+    }
+
     public void setOnItemClickListener(@Nullable final OnItemClickListener<TItem> onItemClickListener) {
         this.onItemClickListener = onItemClickListener;
         notifyDataSetChanged();
@@ -78,7 +200,7 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
         if (viewType == NOT_LOADED_ITEM_TYPE) {
-            return new NotLoadedItemViewHolder(UiUtils.inflate(R.layout.item_not_loaded, parent), this);
+            return new NotLoadedItemViewHolder(UiUtils.inflate(R.layout.item_not_loaded, parent));
         }
         return onCreateItemViewHolder(parent, viewType);
     }
@@ -88,6 +210,9 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
     @SuppressWarnings("unchecked")
     @Override
     public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position) {
+        if (itemsProvider != null) {
+            itemsProvider.onItemBound(position);
+        }
         final TItem item = getItem(position);
         if (holder instanceof NotLoadedItemViewHolder) {
             if (itemsProvider == null) {
@@ -112,9 +237,29 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
         }
     }
 
+    @Override
+    public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        attachedRecyclerViewsCount++;
+        if (attachedRecyclerViewsCount == 1 && itemsProvider != null) {
+            // changes that were made while adapter was detached were not observed
+            subscribeItemsProvider(itemsProvider);
+            itemsCount = itemsProvider.getSize();
+            notifyDataSetChanged();
+        }
+    }
+
     @Override
     public void onDetachedFromRecyclerView(final RecyclerView recyclerView) {
         super.onDetachedFromRecyclerView(recyclerView);
+        attachedRecyclerViewsCount--;
+        if (attachedRecyclerViewsCount == 0) {
+            if (diffTargetProvider != null) {
+                // nothing to animate while detached so items are set without waiting for diff
+                setItemsProvider(diffTargetProvider);
+            }
+            unsubscribeItemsProvider();
+        }
         postHandler.removeCallbacksAndMessages(null);
     }
 
@@ -127,30 +272,37 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
 
     @Override
     public int getItemCount() {
-        return itemsProvider != null ? itemsProvider.getSize() : 0;
+        return itemsCount;
     }
 
     public static class NotLoadedItemViewHolder extends RecyclerView.ViewHolder {
 
-        @NonNull
-        private final RecyclerView.Adapter parent;
         private final View progressBar;
         private final View retryButton;
         @Nullable
         private Subscription subscription;
 
-        public NotLoadedItemViewHolder(final View itemView, @NonNull final RecyclerView.Adapter parent) {
+        public NotLoadedItemViewHolder(final View itemView) {
             super(itemView);
-            this.parent = parent;
             progressBar = itemView.findViewById(R.id.item_not_loaded_progress_bar);
             retryButton = itemView.findViewById(R.id.item_not_loaded_retry_button);
         }
 
+        /**
+         * @deprecated Parent is not notified anymore as loaded item is bound by change notification of provider.
+         * Use {@link #NotLoadedItemViewHolder(View)}.
+         */
+        @Deprecated
+        public NotLoadedItemViewHolder(final View itemView, @NonNull final RecyclerView.Adapter parent) {
+            this(itemView);
+        }
+
         public void bindItem(final int position, @NonNull final ItemsProvider itemsProvider) {
             loadItem(position, itemsProvider);
             retryButton.setOnClickListener(v -> loadItem(position, itemsProvider));
         }
 
+        /* Loaded item is bound by change notification of provider */
         @SuppressWarnings("unchecked")
         private void loadItem(final int position, @NonNull final ItemsProvider itemsProvider) {
             if (subscription != null) {
@@ -161,11 +313,11 @@ public abstract class AbstractItemsAdapter<TItem, TViewHolder extends RecyclerVi
             progressBar.setVisibility(View.VISIBLE);
             subscription = itemsProvider.loadItem(position)
                     .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(ignored -> parent.notifyDataSetChanged(),
-                            throwable -> {
-                                retryButton.setVisibility(View.VISIBLE);
-                                progressBar.setVisibility(View.INVISIBLE);
-                            });
+                    .subscribe(ignored -> {
+                    }, throwable -> {
+                        retryButton.setVisibility(View.VISIBLE);
+                        progressBar.setVisibility(View.INVISIBLE);
+                    });
         }
 
     }
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.network;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.net.ConnectivityManagerCompat;
+import android.telephony.TelephonyManager;
+
+import rx.Observable;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Observer of network connectivity state.
+ */
+public final class NetworkStateObserver {
+
+    @Nullable
+    private static NetworkStateObserver instance;
+
+    @NonNull
+    public static NetworkStateObserver getInstance(@NonNull final Context context) {
+        synchronized (NetworkStateObserver.class) {
+            if (instance == null) {
+                instance = new NetworkStateObserver(context.getApplicationContext());
+            }
+            return instance;
+        }
+    }
+
+    private final ConnectivityManager connectivityManager;
+    private final BehaviorSubject<Boolean> isConnectedSubject;
+    private final Observable<Boolean> isConnectedObservable;
+
+    private NetworkStateObserver(@NonNull final Context context) {
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        isConnectedSubject = BehaviorSubject.create();
+        final ConnectivityReceiver connectivityReceiver = new ConnectivityReceiver();
+        isConnectedObservable = isConnectedSubject
+                .distinctUntilChanged()
+                .doOnSubscribe(() -> {
+                    context.registerReceiver(connectivityReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+                    isConnectedSubject.onNext(isConnected());
+                })
+                .doOnUnsubscribe(() -> context.unregisterReceiver(connectivityReceiver))
+                .replay(1)
+                .refCount();
+    }
+
+    public boolean isConnected() {
+        final NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    /* Returns true if active network is metered so user could pay for traffic */
+    public boolean isMetered() {
+        return ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager);
+    }
+
+    /* Returns true if active network is 2G mobile network */
+    public boolean isSlow() {
+        final NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        if (networkInfo == null || networkInfo.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return false;
+        }
+        switch (networkInfo.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public Observable<Boolean> observeIsConnected() {
+        return isConnectedObservable;
+    }
+
+    private class ConnectivityReceiver extends BroadcastReceiver {
+
+        @Override
+        public void onReceive(final Context context, final Intent intent) {
+            if (ConnectivityManager.CONNECTIVITY_ACTION.equals(intent.getAction())) {
+                isConnectedSubject.onNext(isConnected());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Post request that includes data in CBOR format as content and prefers response in CBOR format with JSON as fallback.
+ * Application should have jackson-dataformat-cbor dependency.
+ */
+public abstract class AbstractCborContentPostCborRequest<T> extends AbstractJsonContentPostJsonRequest<T> {
+
+    protected AbstractCborContentPostCborRequest(@NonNull final Class<T> responseResultType) {
+        super(responseResultType);
+    }
+
+    @NonNull
+    @Override
+    protected WireFormat getWireFormat() {
+        return WireFormat.getCbor();
+    }
+
+    @NonNull
+    @Override
+    protected WireFormat getContentWireFormat() {
+        return WireFormat.getCbor();
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Get request that prefers response in CBOR format and accepts JSON as fallback.
+ * Application should have jackson-dataformat-cbor dependency.
+ */
+public abstract class AbstractGetCborRequest<T> extends AbstractGetJsonRequest<T> {
+
+    protected AbstractGetCborRequest(@NonNull final Class<T> responseResultType) {
+        super(responseResultType);
+    }
+
+    @NonNull
+    @Override
+    protected WireFormat getWireFormat() {
+        return WireFormat.getCbor();
+    }
+
+}
@@ -19,12 +19,21 @@
 
 package org.roboswag.components.requests;
 
+import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.squareup.okhttp.Request;
 
+import org.roboswag.components.network.NetworkStateObserver;
+import org.roboswag.core.log.Lc;
+
 import java.io.IOException;
 
+import rx.Observable;
+import rx.Subscription;
+import rx.subscriptions.Subscriptions;
+
 /**
  * Created by Gavriil Sitnikov on 07/14.
  * Get request that returns data in JSON format
@@ -41,4 +50,75 @@ public abstract class AbstractGetJsonRequest<T> extends AbstractJsonRequest<T> {
         return super.createHttpRequest().get();
     }
 
+    /* GET requests are idempotent so they are retried by default */
+    @Nullable
+    @Override
+    protected RetryPolicy getRetryPolicy() {
+        return RetryPolicy.DEFAULT;
+    }
+
+    /**
+     * Returns policy of hedging. If response headers are not received during some percentile of recent times to first byte
+     * of request's endpoint then duplicate request is sent, first response wins and other call is cancelled.
+     * By default requests are not hedged.
+     *
+     * @return Policy (e.g. {@link HedgingPolicy#DEFAULT}) or null to disable hedging.
+     */
+    @Nullable
+    @Override
+    protected HedgingPolicy getHedgingPolicy() {
+        return null;
+    }
+
+    /**
+     * Returns observable to execute request.
+     * If result of request with same {@link #getCacheKey()} was prefetched then it is returned without network call,
+     * if prefetch is executing right now then observable attaches to it.
+     * Prefetched result is passed through {@link #handleResponse(Object)} of this request.
+     *
+     * @return Observable of response.
+     */
+    @NonNull
+    @Override
+    public Observable<T> execute() {
+        return Observable.defer(() -> {
+            final String cacheKey = getCacheKey();
+            final Class<T> responseResultType = getResponseResultType();
+            final Observable<T> prefetching = PrefetchedResults.attach(cacheKey, responseResultType, getPriority());
+            final T prefetched = PrefetchedResults.take(cacheKey, responseResultType);
+            if (prefetched != null) {
+                return handleOnIo(Observable.just(prefetched));
+            }
+            return (prefetching != null ? handleOnIo(prefetching) : super.execute())
+                    .doOnNext(ignored -> PrefetchedResults.take(cacheKey, responseResultType));
+        });
+    }
+
+    /**
+     * Starts request with {@link RequestPriority#PREFETCH} priority and puts its result to {@link PrefetchedResults}
+     * so next {@link #execute()} of same request will not wait for network.
+     * Priority is raised to priority of request if it is executed while prefetch is still waiting for network slot.
+     * Prefetch is skipped if network is not connected, metered or slow, or if result is already prefetched.
+     *
+     * @param context Context to check network state;
+     * @return Subscription to cancel prefetch.
+     */
+    @NonNull
+    public Subscription prefetch(@NonNull final Context context) {
+        final NetworkStateObserver networkStateObserver = NetworkStateObserver.getInstance(context);
+        if (!networkStateObserver.isConnected() || networkStateObserver.isMetered() || networkStateObserver.isSlow()) {
+            return Subscriptions.empty();
+        }
+        final String cacheKey = getCacheKey();
+        final Class<T> responseResultType = getResponseResultType();
+        if (PrefetchedResults.contains(cacheKey, responseResultType)) {
+            return Subscriptions.empty();
+        }
+        final ExecutionPriority executionPriority = new ExecutionPriority(RequestPriority.PREFETCH);
+        return PrefetchedResults.sharePrefetch(cacheKey, responseResultType, executionPriority,
+                () -> executeWithoutHandling(executionPriority))
+                .subscribe(result -> PrefetchedResults.put(cacheKey, responseResultType, result),
+                        throwable -> Lc.d("Prefetch of %s failed: %s", getUrl(), throwable));
+    }
+
 }
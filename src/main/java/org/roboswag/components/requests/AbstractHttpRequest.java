@@ -20,6 +20,7 @@
 package org.roboswag.components.requests;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -40,12 +41,14 @@ import org.roboswag.core.log.LcHelper;
 import org.roboswag.core.utils.ShouldNotHappenException;
 import org.roboswag.core.utils.StringUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import okio.Buffer;
 import rx.Observable;
@@ -59,9 +62,12 @@ public abstract class AbstractHttpRequest<T> {
 
     private static final String CACHE_PARAMETER_SEPARATOR = "#";
     private static final int CACHE_MAX_KEY_SIZE = 128;
+    private static final int DEBUG_LOG_MAX_CONTENT_SIZE = 16 * 1024;
+    private static final int HTTP_NOT_MODIFIED_CODE = 304;
+    private static final int HTTP_SERVER_ERROR_CODE = 500;
 
     @NonNull
-    private static Charset getCharset(final ResponseBody responseBody) {
+    static Charset getCharset(final ResponseBody responseBody) {
         final MediaType contentType = responseBody.contentType();
         return contentType == null ? Charsets.UTF_8 : contentType.charset(Charsets.UTF_8);
     }
@@ -73,7 +79,19 @@ public abstract class AbstractHttpRequest<T> {
         }
         final Buffer buffer = new Buffer();
         body.writeTo(buffer);
-        return buffer.readUtf8();
+        return isTextContent(body.contentType()) ? buffer.readUtf8() : buffer.readByteString().hex();
+    }
+
+    /* Returns true if content could be logged as text. Binary content (e.g. CBOR) is logged in hex */
+    private static boolean isTextContent(@Nullable final MediaType contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        final String subtype = contentType.subtype().toLowerCase(Locale.US);
+        return "text".equalsIgnoreCase(contentType.type())
+                || "json".equals(subtype) || subtype.endsWith("+json")
+                || "xml".equals(subtype) || subtype.endsWith("+xml")
+                || "x-www-form-urlencoded".equals(subtype);
     }
 
     @NonNull
@@ -81,6 +99,11 @@ public abstract class AbstractHttpRequest<T> {
 
     private Request request;
     private Call call;
+    @Nullable
+    private volatile HedgedCall hedgedCall;
+    private volatile boolean isCancelled;
+    @NonNull
+    private RequestPriority priority = RequestPriority.VISIBLE;
 
     protected AbstractHttpRequest(@NonNull final Class<T> responseResultType) {
         this.responseResultType = responseResultType;
@@ -94,6 +117,12 @@ public abstract class AbstractHttpRequest<T> {
     /* Returns data parser */
     protected abstract ObjectParser getParser() throws Exception;
 
+    /* Returns parser for content type of response. By default content type is ignored */
+    @NonNull
+    protected ObjectParser getParser(@Nullable final MediaType contentType) throws Exception {
+        return getParser();
+    }
+
     @NonNull
     protected abstract String getUrl();
 
@@ -105,9 +134,34 @@ public abstract class AbstractHttpRequest<T> {
         // to be overridden. default does nothing
     }
 
+    /* Returns client to execute request. By default it is shared client of request's host from HttpClientRegistry */
     @NonNull
     protected OkHttpClient createHttpClient() {
-        return new OkHttpClient();
+        return HttpClientRegistry.getClient(new GenericUrl(getUrl()).getHost());
+    }
+
+    /* Returns name of endpoint to aggregate metrics of request. By default it is host and path of request's URL */
+    @NonNull
+    protected String getMetricsEndpoint() {
+        final GenericUrl url = new GenericUrl(getUrl());
+        return url.getHost() + url.getRawPath();
+    }
+
+    /**
+     * Returns true if request should be sent with validators of previous response stored in {@link RevalidationStore}.
+     * On 304 Not Modified previously parsed object is returned. It is shared with other requests so it should not be modified.
+     * By default it is false.
+     *
+     * @return True if revalidation is enabled.
+     */
+    protected boolean isRevalidationEnabled() {
+        return false;
+    }
+
+    /* Returns policy of storing responses in ResponseCache. By default responses are not cached */
+    @Nullable
+    protected CachePolicy getCachePolicy() {
+        return null;
     }
 
     @NonNull
@@ -120,7 +174,7 @@ public abstract class AbstractHttpRequest<T> {
     }
 
     @NonNull
-    private Request getRequest() throws IOException {
+    Request getRequest() throws IOException {
         if (request == null) {
             request = createHttpRequest().build();
         }
@@ -128,58 +182,452 @@ public abstract class AbstractHttpRequest<T> {
     }
 
     public void cancel() {
+        isCancelled = true;
         if (call != null && !call.isCanceled()) {
             call.cancel();
         }
+        final HedgedCall currentHedgedCall = hedgedCall;
+        if (currentHedgedCall != null) {
+            currentHedgedCall.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /* Resets cancellation flag. Used by executors that are not using call of request itself */
+    void resetCancelled() {
+        isCancelled = false;
     }
 
-    @SuppressWarnings("unchecked")
     @NonNull
     public T executeSync() throws Exception {
+        isCancelled = false;
+        final long rateLimitWaitMillis = RateLimits.reserve(this);
+        if (rateLimitWaitMillis > 0) {
+            Thread.sleep(rateLimitWaitMillis);
+        }
+        return executeAttemptSync();
+    }
+
+    /* Executes request without waiting for rate limits. Used inside of withRetries() which reserves rate limits by itself */
+    @NonNull
+    T executeAttemptSync() throws Exception {
+        return handleResponse(parseSync(fetchSync()));
+    }
+
+    /* Returns true if response should be downloaded on network thread and parsed on ParsingStage thread.
+     * Else it is parsed while downloading. Staged response is buffered in memory as a whole, so it is off by default
+     * and should be enabled only for responses of bounded size which parsing is heavy enough to hold network threads */
+    protected boolean isParsingStaged() {
+        return false;
+    }
+
+    /* Executes network part of request. Result should be passed to parseSync() which finishes metrics of request */
+    @NonNull
+    private FetchedResponse fetchSync() throws Exception {
         final Request request = getRequest();
-        if (LcHelper.getLogLevel() <= Log.DEBUG) {
+        final RequestMetrics metrics = new RequestMetrics(getMetricsEndpoint(), request.method());
+        try {
+            return fetchSync(request, metrics);
+        } catch (final Exception exception) {
+            RequestMetricsCollector.finish(metrics, false);
+            throw exception;
+        }
+    }
+
+    @NonNull
+    private FetchedResponse fetchSync(@NonNull final Request request, @NonNull final RequestMetrics metrics) throws Exception {
+        final boolean isDebugLogging = LcHelper.getLogLevel() <= Log.DEBUG;
+        if (isDebugLogging) {
             Lc.d("Url requested: %s\n%s", request.url(), requestBodyToString(request));
         }
-        call = createHttpClient().newCall(request);
-        final Response response = call.execute();
-        final ResponseBody responseBody = response.body();
-        final byte[] bytes = responseBody.bytes();
-        final Charset charset = getCharset(responseBody);
-        if (LcHelper.getLogLevel() <= Log.DEBUG) {
-            Lc.d("Response for: %s has code %s and content: %s", request.url(), response.code(), new String(bytes, charset));
+        final CachePolicy cachePolicy = getCachePolicy();
+        final boolean isRevalidationEnabled = isRevalidationEnabled();
+        final String requestCacheKey = cachePolicy != null || isRevalidationEnabled ? getCacheKey() : null;
+        final RevalidationStore.Entry revalidationEntry = isRevalidationEnabled ? RevalidationStore.get(requestCacheKey) : null;
+        final Request callRequest = revalidationEntry != null ? revalidationEntry.addConditionalHeaders(request) : request;
+        final CircuitBreaker circuitBreaker = CircuitBreaker.forHost(request.httpUrl().host());
+        circuitBreaker.checkRequestAllowed();
+        final Response response;
+        boolean isResultReported = false;
+        try {
+            response = executeCall(callRequest, metrics, circuitBreaker);
+            isResultReported = true;
+        } finally {
+            if (!isResultReported) {
+                // releases trial request of breaker if something failed before response or failure were reported
+                circuitBreaker.onCancelled();
+            }
         }
+        RateLimits.onResponse(this, response);
         if (getResponseResultType().equals(Response.class)) {
-            return handleResponse((T) response);
+            if (isDebugLogging) {
+                Lc.d("Response for: %s has code %s", request.url(), response.code());
+            }
+            return new FetchedResponse(metrics, response, response);
         }
-        final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        final T result;
+        if (revalidationEntry != null && response.code() == HTTP_NOT_MODIFIED_CODE
+                && responseResultType.isInstance(revalidationEntry.getValue())) {
+            response.body().close();
+            if (isDebugLogging) {
+                Lc.d("Response for: %s is not modified", request.url());
+            }
+            if (cachePolicy != null) {
+                ResponseCache.putToMemory(requestCacheKey, revalidationEntry.getValue(), System.currentTimeMillis());
+            }
+            return new FetchedResponse(metrics, response, revalidationEntry.getValue());
+        }
+        final ResponseBody responseBody = response.body();
+        final MeteredInputStream meteredInputStream = new MeteredInputStream(responseBody.byteStream());
+        final BoundedTeeInputStream debugInputStream = isDebugLogging
+                ? new BoundedTeeInputStream(meteredInputStream, DEBUG_LOG_MAX_CONTENT_SIZE)
+                : null;
+        final InputStream bodyInputStream = debugInputStream != null ? debugInputStream : meteredInputStream;
+        final String cacheKey = cachePolicy != null && response.isSuccessful() ? requestCacheKey : null;
+        final String revalidationKey = isRevalidationEnabled && response.isSuccessful() ? requestCacheKey : null;
+        if (!isParsingStaged()) {
+            return new FetchedResponse(metrics, response, bodyInputStream, meteredInputStream, debugInputStream, cacheKey, revalidationKey);
+        }
+        final Buffer buffer = new Buffer();
+        try {
+            buffer.readFrom(bodyInputStream);
+        } finally {
+            responseBody.close();
+        }
+        return new FetchedResponse(metrics, response, buffer.inputStream(), meteredInputStream, debugInputStream,
+                cacheKey, revalidationKey);
+    }
+
+    /* Parses result of fetchSync() and finishes metrics of request. Result is not passed through handleResponse() */
+    @NonNull
+    private T parseSync(@NonNull final FetchedResponse fetchedResponse) throws Exception {
+        boolean isSucceeded = false;
+        try {
+            final T result = parseSyncWithoutMetrics(fetchedResponse);
+            isSucceeded = true;
+            return result;
+        } finally {
+            RequestMetricsCollector.finish(fetchedResponse.metrics, isSucceeded);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    private T parseSyncWithoutMetrics(@NonNull final FetchedResponse fetchedResponse) throws Exception {
+        if (fetchedResponse.readyValue != null) {
+            return (T) fetchedResponse.readyValue;
+        }
+        final Response response = fetchedResponse.response;
+        final ResponseBody responseBody = response.body();
+        final Charset charset = getCharset(responseBody);
+        final MediaType contentType = responseBody.contentType();
+        fetchedResponse.metrics.onParsingStarted(fetchedResponse.meteredInputStream);
+        final ResponseCache.DiskWriter diskWriter = fetchedResponse.cacheKey != null
+                ? ResponseCache.startWriting(fetchedResponse.cacheKey, charset, contentType, fetchedResponse.bodyInputStream)
+                : null;
+        T result = null;
         try {
-            result = getParser().parseAndClose(byteArrayInputStream, charset, responseResultType);
+            result = getParser(contentType).parseAndClose(diskWriter != null ? diskWriter : fetchedResponse.bodyInputStream,
+                    charset, responseResultType);
         } catch (final RuntimeException throwable) {
             throw new ShouldNotHappenException("Runtime exception during response parsing " + getUrl(), throwable);
         } catch (final JsonProcessingException exception) {
             throw new ShouldNotHappenException("Parsing exception during response parsing " + getUrl(), exception);
+        } finally {
+            responseBody.close();
+            fetchedResponse.metrics.onBodyProcessed(fetchedResponse.meteredInputStream);
+            if (diskWriter != null) {
+                if (result != null) {
+                    diskWriter.commit();
+                } else {
+                    diskWriter.abort();
+                }
+            }
+            if (fetchedResponse.debugInputStream != null) {
+                Lc.d("Response for: %s has code %s and content: %s",
+                        getRequest().url(), response.code(), isTextContent(contentType)
+                                ? fetchedResponse.debugInputStream.getCopy(charset)
+                                : fetchedResponse.debugInputStream.getHexCopy());
+            }
         }
         if (result == null) {
             throw new ShouldNotHappenException("Response is null for request " + getUrl());
         }
+        if (fetchedResponse.cacheKey != null) {
+            ResponseCache.putToMemory(fetchedResponse.cacheKey, result, System.currentTimeMillis());
+        }
+        if (fetchedResponse.revalidationKey != null) {
+            RevalidationStore.put(fetchedResponse.revalidationKey, response, result);
+        }
+        return result;
+    }
+
+    @NonNull
+    private Response executeCall(@NonNull final Request request, @NonNull final RequestMetrics metrics,
+                                 @NonNull final CircuitBreaker circuitBreaker) throws IOException {
+        final OkHttpClient client = createHttpClient();
+        final Request callRequest = request.newBuilder().tag(metrics).build();
+        call = client.newCall(callRequest);
+        final HedgingPolicy hedgingPolicy = getHedgingPolicy();
+        final long hedgeDelayMillis = hedgingPolicy != null ? hedgingPolicy.onRequestStarted(getMetricsEndpoint()) : -1;
+        final HedgedCall currentHedgedCall = hedgeDelayMillis >= 0 ? new HedgedCall(client, call, hedgingPolicy, hedgeDelayMillis) : null;
+        hedgedCall = currentHedgedCall;
+        final Response response;
+        metrics.onCallStarted();
+        try {
+            response = currentHedgedCall != null ? currentHedgedCall.execute(callRequest) : call.execute();
+        } catch (final IOException | RuntimeException exception) {
+            if (isCancelled || call.isCanceled() || !(exception instanceof IOException)) {
+                circuitBreaker.onCancelled();
+            } else {
+                circuitBreaker.onFailure();
+                HttpClientRegistry.getDns().invalidate(request.httpUrl().host());
+            }
+            throw exception;
+        }
+        metrics.onHeadersReceived(response.code());
+        if (response.code() >= HTTP_SERVER_ERROR_CODE) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return response;
+    }
+
+    /**
+     * Returns response from {@link ResponseCache}. Cached response is passed through {@link #handleResponse(Object)} as network one.
+     *
+     * @param acceptStale If true then returns response that is not fresh but still not older than max-stale time;
+     * @return Cached response or null if there is no usable one.
+     * @throws Exception Exception during handling of response.
+     */
+    @Nullable
+    public T getCachedSync(final boolean acceptStale) throws Exception {
+        final CachePolicy cachePolicy = getCachePolicy();
+        if (cachePolicy == null) {
+            return null;
+        }
+        final RequestMetrics metrics = new RequestMetrics(getMetricsEndpoint(), getRequest().method());
+        final T result = getCachedSync(cachePolicy, acceptStale);
+        if (result != null) {
+            metrics.onCacheHit();
+            RequestMetricsCollector.finish(metrics, true);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private T getCachedSync(@NonNull final CachePolicy cachePolicy, final boolean acceptStale) throws Exception {
+        final String cacheKey = getCacheKey();
+        final ResponseCache.Entry<Object> memoryEntry = ResponseCache.getFromMemory(cacheKey);
+        if (memoryEntry != null && responseResultType.isInstance(memoryEntry.getValue())) {
+            return isCachedUsable(cachePolicy, memoryEntry.getCachedTimeMillis(), acceptStale)
+                    ? handleResponse((T) memoryEntry.getValue())
+                    : null;
+        }
+        final ResponseCache.DiskEntry diskEntry;
+        try {
+            diskEntry = ResponseCache.openFromDisk(cacheKey);
+        } catch (final IOException | RuntimeException exception) {
+            Lc.d("Can't read cached response for: %s: %s", getUrl(), exception);
+            return null;
+        }
+        if (diskEntry == null) {
+            return null;
+        }
+        if (!isCachedUsable(cachePolicy, diskEntry.getCachedTimeMillis(), acceptStale)) {
+            diskEntry.getInputStream().close();
+            return null;
+        }
+        final T result;
+        try {
+            result = getParser(diskEntry.getContentType()).parseAndClose(diskEntry.getInputStream(), diskEntry.getCharset(), responseResultType);
+        } catch (final IOException | RuntimeException exception) {
+            Lc.d("Can't parse cached response for: %s: %s", getUrl(), exception);
+            ResponseCache.remove(cacheKey);
+            return null;
+        }
+        if (result == null) {
+            return null;
+        }
+        ResponseCache.putToMemory(cacheKey, result, diskEntry.getCachedTimeMillis());
         return handleResponse(result);
     }
 
+    private boolean isCachedUsable(@NonNull final CachePolicy cachePolicy, final long cachedTimeMillis, final boolean acceptStale) {
+        return acceptStale ? cachePolicy.isUsable(cachedTimeMillis) : cachePolicy.isFresh(cachedTimeMillis);
+    }
+
     @NonNull
-    public Observable<T> execute() {
+    public Observable<T> getCached(final boolean acceptStale) {
         return Observable.<T>create(subscriber -> {
             try {
-                subscriber.onNext(executeSync());
+                final T cached = getCachedSync(acceptStale);
+                if (cached != null) {
+                    subscriber.onNext(cached);
+                }
                 subscriber.onCompleted();
             } catch (Exception e) {
                 subscriber.onError(e);
             }
-        }).subscribeOn(Schedulers.io())
+        }).subscribeOn(Schedulers.io());
+    }
+
+    @NonNull
+    public Observable<T> execute(@NonNull final CacheMode cacheMode) {
+        switch (cacheMode) {
+            case NETWORK_ONLY:
+                return execute();
+            case CACHE_ELSE_NETWORK:
+                return getCached(false).switchIfEmpty(execute());
+            case CACHE_THEN_NETWORK:
+                return Observable.concat(getCached(true), execute());
+            default:
+                Lc.assertion(new ShouldNotHappenException("Unknown cache mode " + cacheMode));
+                return execute();
+        }
+    }
+
+    /**
+     * Returns observable to execute request.
+     * If request is coalescable then identical requests executing at same time share one network call and parsed result,
+     * and {@link #handleResponse(Object)} is called for each of them.
+     *
+     * @return Observable of response.
+     */
+    @NonNull
+    public Observable<T> execute() {
+        return Observable.defer(() -> execute(new ExecutionPriority(priority)));
+    }
+
+    /* Returns observable to execute request with priority that is passed per execution instead of request's priority */
+    @NonNull
+    Observable<T> execute(@NonNull final ExecutionPriority executionPriority) {
+        return isCoalescable()
+                ? handleOnIo(executeWithoutHandling(executionPriority))
+                : createNetworkObservable(true, executionPriority);
+    }
+
+    /* Returns observable of parsed response that is not passed through handleResponse(). Result could be shared between requests */
+    @NonNull
+    Observable<T> executeWithoutHandling(@NonNull final ExecutionPriority executionPriority) {
+        if (!isCoalescable()) {
+            return createNetworkObservable(false, executionPriority);
+        }
+        return Observable.defer(() -> InFlightRequests.share(getCacheKey(), responseResultType,
+                () -> createNetworkObservable(false, executionPriority)));
+    }
+
+    /* Passes results that are not handled yet through handleResponse() on io scheduler */
+    @NonNull
+    Observable<T> handleOnIo(@NonNull final Observable<T> unhandledResults) {
+        return unhandledResults
+                .observeOn(Schedulers.io())
+                .flatMap(result -> {
+                    try {
+                        return Observable.just(handleResponse(result));
+                    } catch (final Exception exception) {
+                        return Observable.error(exception);
+                    }
+                });
+    }
+
+    /**
+     * Returns true if identical requests could share one network call. Shared result is same object for all of requests
+     * so it should not be modified by {@link #handleResponse(Object)}. By default it is false.
+     *
+     * @return True if request is coalescable.
+     */
+    protected boolean isCoalescable() {
+        return false;
+    }
+
+    @NonNull
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /* Sets priority of request in RequestScheduler. It is applied to executions that are subscribed after that */
+    public void setPriority(@NonNull final RequestPriority priority) {
+        this.priority = priority;
+    }
+
+    /* Returns policy of retrying failed request. By default requests are not retried */
+    @Nullable
+    protected RetryPolicy getRetryPolicy() {
+        return null;
+    }
+
+    /* Returns policy of hedging of request. Only idempotent requests could be hedged so it is opened in AbstractGetJsonRequest */
+    @Nullable
+    HedgingPolicy getHedgingPolicy() {
+        return null;
+    }
+
+    @NonNull
+    private Observable<T> createNetworkObservable(final boolean isHandlingResponse, @NonNull final ExecutionPriority executionPriority) {
+        final Observable<T> result;
+        if (isParsingStaged()) {
+            final Observable<FetchedResponse> fetchObservable = Observable.<FetchedResponse>create(subscriber -> {
+                try {
+                    subscriber.onNext(fetchSync());
+                    subscriber.onCompleted();
+                } catch (Exception e) {
+                    subscriber.onError(e);
+                }
+            });
+            result = scheduleNetwork(fetchObservable, executionPriority)
+                    .flatMap(fetchedResponse -> ParsingStage.getInstance().execute(() -> {
+                        final T parsed = parseSync(fetchedResponse);
+                        return isHandlingResponse ? handleResponse(parsed) : parsed;
+                    }));
+        } else {
+            final Observable<T> executeObservable = Observable.<T>create(subscriber -> {
+                try {
+                    final T parsed = parseSync(fetchSync());
+                    subscriber.onNext(isHandlingResponse ? handleResponse(parsed) : parsed);
+                    subscriber.onCompleted();
+                } catch (Exception e) {
+                    subscriber.onError(e);
+                }
+            });
+            result = scheduleNetwork(executeObservable, executionPriority);
+        }
+        return withRetries(result)
                 .doOnUnsubscribe(this::cancel)
                 .unsubscribeOn(Schedulers.io());
     }
 
+    /* Returns observable that subscribes to blocking source of request in RequestScheduler */
+    @NonNull
+    <R> Observable<R> scheduleNetwork(@NonNull final Observable<R> blockingSource, @NonNull final ExecutionPriority executionPriority) {
+        return Observable.defer(() ->
+                RequestScheduler.getInstance().schedule(blockingSource, executionPriority, new GenericUrl(getUrl()).getHost()));
+    }
+
+    /* Returns observable that waits for rate limits of request before each attempt and retries attempt by RetryPolicy.
+     * It is not cancelling call on unsubscription so caller could keep reading response after attempt completes */
+    @NonNull
+    <R> Observable<R> withRetries(@NonNull final Observable<R> attempt) {
+        final Observable<R> rateLimitedAttempt = Observable.defer(() -> {
+            isCancelled = false;
+            final long rateLimitWaitMillis;
+            try {
+                rateLimitWaitMillis = RateLimits.reserve(this);
+            } catch (final IOException exception) {
+                return Observable.error(exception);
+            }
+            return rateLimitWaitMillis > 0
+                    ? Observable.timer(rateLimitWaitMillis, TimeUnit.MILLISECONDS).flatMap(ignored -> attempt)
+                    : attempt;
+        });
+        final RetryPolicy retryPolicy = getRetryPolicy();
+        return retryPolicy != null ? rateLimitedAttempt.retryWhen(retryPolicy.createRetryHandler()) : rateLimitedAttempt;
+    }
+
     /* Handle response. Use it to do something after request successfully executes */
     @NonNull
     protected T handleResponse(@NonNull final T response) throws Exception {
@@ -204,4 +652,53 @@ public abstract class AbstractHttpRequest<T> {
         return fileNameSafeCacheKey.substring(Math.max(0, length - CACHE_MAX_KEY_SIZE), length) + CACHE_PARAMETER_SEPARATOR + cacheKeyMd5;
     }
 
-}
\ No newline at end of file
+    /* Response of network part of request that is passed to parsing part */
+    private static class FetchedResponse {
+
+        @NonNull
+        private final RequestMetrics metrics;
+        @NonNull
+        private final Response response;
+        @Nullable
+        private final Object readyValue;
+        @Nullable
+        private final InputStream bodyInputStream;
+        @Nullable
+        private final MeteredInputStream meteredInputStream;
+        @Nullable
+        private final BoundedTeeInputStream debugInputStream;
+        @Nullable
+        private final String cacheKey;
+        @Nullable
+        private final String revalidationKey;
+
+        /* Response that is already parsed and only should be handled */
+        public FetchedResponse(@NonNull final RequestMetrics metrics, @NonNull final Response response, @NonNull final Object readyValue) {
+            this(metrics, response, readyValue, null, null, null, null, null);
+        }
+
+        /* Response that should be parsed from stream. Metered stream is network stream even if body is already buffered */
+        public FetchedResponse(@NonNull final RequestMetrics metrics, @NonNull final Response response,
+                               @NonNull final InputStream bodyInputStream, @NonNull final MeteredInputStream meteredInputStream,
+                               @Nullable final BoundedTeeInputStream debugInputStream,
+                               @Nullable final String cacheKey, @Nullable final String revalidationKey) {
+            this(metrics, response, null, bodyInputStream, meteredInputStream, debugInputStream, cacheKey, revalidationKey);
+        }
+
+        private FetchedResponse(@NonNull final RequestMetrics metrics, @NonNull final Response response, @Nullable final Object readyValue,
+                                @Nullable final InputStream bodyInputStream, @Nullable final MeteredInputStream meteredInputStream,
+                                @Nullable final BoundedTeeInputStream debugInputStream,
+                                @Nullable final String cacheKey, @Nullable final String revalidationKey) {
+            this.metrics = metrics;
+            this.response = response;
+            this.readyValue = readyValue;
+            this.bodyInputStream = bodyInputStream;
+            this.meteredInputStream = meteredInputStream;
+            this.debugInputStream = debugInputStream;
+            this.cacheKey = cacheKey;
+            this.revalidationKey = revalidationKey;
+        }
+
+    }
+
+}
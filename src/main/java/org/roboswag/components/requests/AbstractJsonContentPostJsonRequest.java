@@ -30,10 +30,26 @@ import com.google.api.client.http.json.JsonHttpContent;
  */
 public abstract class AbstractJsonContentPostJsonRequest<T> extends AbstractPostJsonRequest<T> {
 
+    /* Returns content serialized by generated JsonAdapter if content object class has it, else by reflection */
+    @SuppressWarnings("unchecked")
     @NonNull
     @Override
     protected AbstractHttpContent getContent() {
-        return new JsonHttpContent(DEFAULT_JSON_FACTORY, getContentObject());
+        final Object contentObject = getContentObject();
+        final WireFormat contentWireFormat = getContentWireFormat();
+        if (contentWireFormat != WireFormat.JSON) {
+            return contentWireFormat.createContent(contentObject);
+        }
+        final JsonAdapter<Object> adapter = JsonAdapters.get((Class<Object>) contentObject.getClass());
+        return adapter != null
+                ? new JsonAdapterHttpContent<>(DEFAULT_JSON_FACTORY, adapter, contentObject)
+                : new JsonHttpContent(DEFAULT_JSON_FACTORY, contentObject);
+    }
+
+    /* Returns format of content. By default it is JSON */
+    @NonNull
+    protected WireFormat getContentWireFormat() {
+        return WireFormat.JSON;
     }
 
     protected AbstractJsonContentPostJsonRequest(@NonNull final Class<T> responseResultType) {
@@ -20,10 +20,20 @@
 package org.roboswag.components.requests;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.ObjectParser;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by Gavriil Sitnikov on 07/14.
@@ -33,14 +43,72 @@ public abstract class AbstractJsonRequest<T> extends AbstractHttpRequest<T> {
 
     protected static final JsonFactory DEFAULT_JSON_FACTORY = new JacksonFactory();
 
+    private static final String ACCEPT_HEADER = "Accept";
+
+    /* Returns parser of preferred format for response type */
     @NonNull
     @Override
     protected ObjectParser getParser() {
-        return DEFAULT_JSON_FACTORY.createJsonObjectParser();
+        return getWireFormat().getParser(getResponseResultType());
+    }
+
+    /* Returns parser of accepted format that matches content type of response. If there is no such format then preferred format is used */
+    @NonNull
+    @Override
+    protected ObjectParser getParser(@Nullable final MediaType contentType) {
+        for (final WireFormat wireFormat : getAcceptedWireFormats()) {
+            if (wireFormat.matches(contentType)) {
+                return wireFormat.getParser(getResponseResultType());
+            }
+        }
+        return getParser();
+    }
+
+    /* Returns preferred format of response. By default it is JSON */
+    @NonNull
+    protected WireFormat getWireFormat() {
+        return WireFormat.JSON;
+    }
+
+    /* Returns formats of response in order of preference. By default it is preferred format and JSON as fallback */
+    @NonNull
+    protected List<WireFormat> getAcceptedWireFormats() {
+        final WireFormat wireFormat = getWireFormat();
+        return wireFormat == WireFormat.JSON ? Collections.singletonList(wireFormat) : Arrays.asList(wireFormat, WireFormat.JSON);
+    }
+
+    /* Adds Accept header with accepted formats if response could be not in JSON format */
+    @NonNull
+    @Override
+    protected Request.Builder createHttpRequest() throws IOException {
+        final Request.Builder result = super.createHttpRequest();
+        final List<WireFormat> acceptedWireFormats = getAcceptedWireFormats();
+        if (acceptedWireFormats.size() == 1 && acceptedWireFormats.get(0) == WireFormat.JSON) {
+            return result;
+        }
+        final StringBuilder acceptHeader = new StringBuilder();
+        for (int i = 0; i < acceptedWireFormats.size(); i++) {
+            final MediaType mediaType = MediaType.parse(acceptedWireFormats.get(i).getMediaType());
+            if (i > 0) {
+                acceptHeader.append(", ");
+            }
+            acceptHeader.append(mediaType.type()).append('/').append(mediaType.subtype());
+            if (i > 0) {
+                acceptHeader.append(";q=").append(String.format(Locale.US, "%.1f", Math.max(0.1, 1 - 0.1 * i)));
+            }
+        }
+        return result.header(ACCEPT_HEADER, acceptHeader.toString());
     }
 
     protected AbstractJsonRequest(@NonNull final Class<T> responseResultType) {
         super(responseResultType);
     }
 
+    /* Reads response from current value of parser by generated JsonAdapter if response type has it, else by reflection */
+    @Nullable
+    T readResponse(@NonNull final JsonParser parser) throws IOException {
+        final JsonAdapter<T> adapter = JsonAdapters.get(getResponseResultType());
+        return adapter != null ? adapter.read(parser) : parser.parse(getResponseResultType());
+    }
+
 }
\ No newline at end of file
@@ -22,11 +22,8 @@ package org.roboswag.components.requests;
 import android.support.annotation.NonNull;
 
 import com.google.api.client.http.AbstractHttpContent;
-import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
@@ -35,6 +32,9 @@ import java.io.IOException;
  */
 public abstract class AbstractPostJsonRequest<T> extends AbstractJsonRequest<T> {
 
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP_ENCODING = "gzip";
+
     @NonNull
     protected abstract AbstractHttpContent getContent();
 
@@ -42,14 +42,22 @@ public abstract class AbstractPostJsonRequest<T> extends AbstractJsonRequest<T>
         super(responseResultType);
     }
 
+    /* Returns true if content should be sent with chunked transfer encoding. Else content length is calculated before sending */
+    protected boolean isContentChunked() {
+        return false;
+    }
+
+    /* Returns true if content should be compressed with gzip. Server should support gzip content encoding */
+    protected boolean isContentGzipped() {
+        return false;
+    }
+
     @NonNull
     @Override
     protected Request.Builder createHttpRequest() throws IOException {
-        final AbstractHttpContent content = getContent();
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        getContent().writeTo(byteArrayOutputStream);
-        return super.createHttpRequest().post(RequestBody.create(
-                MediaType.parse(content.getMediaType().build()), byteArrayOutputStream.toByteArray()));
+        final Request.Builder result = super.createHttpRequest()
+                .post(new StreamingRequestBody(getContent(), isContentChunked(), isContentGzipped()));
+        return isContentGzipped() ? result.header(CONTENT_ENCODING_HEADER, GZIP_ENCODING) : result;
     }
 
 }
@@ -0,0 +1,195 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.util.ObjectParser;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.util.List;
+
+import rx.Observable;
+import rx.Observer;
+import rx.observables.SyncOnSubscribe;
+import rx.schedulers.Schedulers;
+
+/**
+ * Get request of large JSON array that emits elements while response is still downloading.
+ * Array could be response itself or field of response object (see {@link #getArrayFieldName()}).
+ * Elements are parsed only when they are requested by subscriber so memory is bounded by backpressure, not by response size.
+ * Response is opened in {@link RequestScheduler} and is retried by {@link #getRetryPolicy()} until first element is emitted.
+ * {@link #executeSync()} and {@link #execute()} return raw response.
+ */
+public abstract class AbstractStreamingGetJsonArrayRequest<T> extends AbstractHttpRequest<Response> {
+
+    @NonNull
+    private final Class<T> elementType;
+
+    protected AbstractStreamingGetJsonArrayRequest(@NonNull final Class<T> elementType) {
+        super(Response.class);
+        this.elementType = elementType;
+    }
+
+    @NonNull
+    public Class<T> getElementType() {
+        return elementType;
+    }
+
+    @NonNull
+    @Override
+    protected ObjectParser getParser() {
+        return WireFormat.JSON.getParser(elementType);
+    }
+
+    @NonNull
+    @Override
+    protected Request.Builder createHttpRequest() throws IOException {
+        return super.createHttpRequest().get();
+    }
+
+    /* Returns name of field of response object that contains array or null if response is array itself */
+    @Nullable
+    protected String getArrayFieldName() {
+        return null;
+    }
+
+    /**
+     * Returns observable that executes request and emits elements of array one by one as they are parsed.
+     * Elements are read from network only on request of subscriber. Unsubscription cancels request.
+     *
+     * @return Observable of elements.
+     */
+    @NonNull
+    public Observable<T> executeElements() {
+        final Observable<ArrayReader> openObservable = Observable.<ArrayReader>create(subscriber -> {
+            final ArrayReader reader = new ArrayReader();
+            try {
+                reader.open();
+                subscriber.onNext(reader);
+                subscriber.onCompleted();
+            } catch (final Exception exception) {
+                reader.close();
+                subscriber.onError(exception);
+            }
+        });
+        // opening is scheduled and retried as other requests, call is cancelled only after reading of elements
+        return Observable.defer(() -> withRetries(scheduleNetwork(openObservable, new ExecutionPriority(getPriority()))))
+                .flatMap(reader -> Observable.create(SyncOnSubscribe.<ArrayReader, T>createSingleState(() -> reader,
+                        (state, observer) -> state.next(observer),
+                        ArrayReader::close))
+                        .subscribeOn(Schedulers.io()))
+                .doOnUnsubscribe(this::cancel)
+                .unsubscribeOn(Schedulers.io());
+    }
+
+    /**
+     * Returns observable that executes request and emits elements of array in chunks.
+     *
+     * @param chunkSize Max size of chunk. Last chunk could be smaller;
+     * @return Observable of chunks of elements.
+     */
+    @NonNull
+    public Observable<List<T>> executeChunks(final int chunkSize) {
+        return executeElements().buffer(chunkSize);
+    }
+
+    private class ArrayReader {
+
+        @Nullable
+        private Response response;
+        @Nullable
+        private JsonParser parser;
+        @Nullable
+        private JsonAdapter<T> adapter;
+        private boolean isFinished;
+
+        public void next(@NonNull final Observer<? super T> observer) {
+            try {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    isFinished = true;
+                    close();
+                    observer.onCompleted();
+                    return;
+                }
+                final T element = adapter != null ? adapter.read(parser) : parser.parse(elementType);
+                if (element == null) {
+                    throw new IOException("Null element in array of " + getUrl());
+                }
+                observer.onNext(element);
+            } catch (final Exception exception) {
+                isFinished = true;
+                close();
+                observer.onError(exception);
+            }
+        }
+
+        public void open() throws Exception {
+            // rate limits are already reserved by withRetries() so opening must not wait for them while holding scheduler slot
+            response = executeAttemptSync();
+            if (!response.isSuccessful()) {
+                throw new IOException("Request " + getUrl() + " failed with code " + response.code());
+            }
+            parser = AbstractJsonRequest.DEFAULT_JSON_FACTORY.createJsonParser(response.body().byteStream(), getCharset(response.body()));
+            adapter = JsonAdapters.get(elementType);
+            JsonToken token = parser.nextToken();
+            final String arrayFieldName = getArrayFieldName();
+            if (arrayFieldName != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Response of " + getUrl() + " is not an object");
+                }
+                token = parser.nextToken();
+                while (token == JsonToken.FIELD_NAME && !arrayFieldName.equals(parser.getCurrentName())) {
+                    parser.nextToken();
+                    parser.skipChildren();
+                    token = parser.nextToken();
+                }
+                if (token != JsonToken.FIELD_NAME) {
+                    throw new IOException("No field " + arrayFieldName + " in response of " + getUrl());
+                }
+                token = parser.nextToken();
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Response of " + getUrl() + " has no array");
+            }
+        }
+
+        public void close() {
+            if (!isFinished) {
+                cancel();
+            }
+            if (response != null) {
+                try {
+                    response.body().close();
+                } catch (final IOException exception) {
+                    // ignored as response is not needed anymore
+                }
+                response = null;
+            }
+        }
+
+    }
+
+}
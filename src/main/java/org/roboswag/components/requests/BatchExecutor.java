@@ -0,0 +1,365 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.util.Key;
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Executor that collects small JSON POST requests during time window (or until batch size limit is reached)
+ * and sends them as one request to batch endpoint.
+ * Batch request content is {"requests":[{"id":"0","method":"POST","url":"...","body":{...}}, ...]},
+ * batch response content should be {"responses":[{"id":"0","code":200,"body":{...}}, ...]}.
+ * Each request gets its own result or error. Headers of batched requests are not sent.
+ * Bodies of responses are parsed right from stream of batch response if "id" goes before "body" in response item.
+ * Unsubscription or {@link AbstractHttpRequest#cancel()} of request removes it from batch if batch is not sent yet.
+ */
+public class BatchExecutor {
+
+    private static final String METHOD_POST = "POST";
+    private static final String RESPONSES_FIELD = "responses";
+    private static final String ID_FIELD = "id";
+    private static final String CODE_FIELD = "code";
+    private static final String BODY_FIELD = "body";
+
+    @NonNull
+    private final String batchUrl;
+    private final int maxBatchSize;
+    private final long windowMillis;
+
+    private final Object lock = new Object();
+    private List<Entry<?>> pendingEntries = new ArrayList<>();
+    @Nullable
+    private Subscription flushSubscription;
+
+    public BatchExecutor(@NonNull final String batchUrl, final int maxBatchSize, final long window, @NonNull final TimeUnit timeUnit) {
+        this.batchUrl = batchUrl;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = timeUnit.toMillis(window);
+    }
+
+    /**
+     * Returns observable that adds request to batch on subscription.
+     *
+     * @param request Request to execute in batch;
+     * @param <T>     Type of response;
+     * @return Observable of request's response.
+     */
+    @NonNull
+    public <T> Observable<T> execute(@NonNull final AbstractJsonContentPostJsonRequest<T> request) {
+        return Observable.<T>create(subscriber -> {
+            final Entry<T> entry = new Entry<>(request, subscriber);
+            subscriber.add(Subscriptions.create(() -> remove(entry)));
+            request.resetCancelled();
+            add(entry);
+        });
+    }
+
+    private void add(@NonNull final Entry<?> entry) {
+        synchronized (lock) {
+            pendingEntries.add(entry);
+            if (pendingEntries.size() >= maxBatchSize) {
+                scheduleFlush(0);
+            } else if (flushSubscription == null) {
+                scheduleFlush(windowMillis);
+            }
+        }
+    }
+
+    private void remove(@NonNull final Entry<?> entry) {
+        synchronized (lock) {
+            pendingEntries.remove(entry);
+        }
+    }
+
+    private void scheduleFlush(final long delayMillis) {
+        if (flushSubscription != null) {
+            flushSubscription.unsubscribe();
+        }
+        flushSubscription = Observable.timer(delayMillis, TimeUnit.MILLISECONDS, Schedulers.io())
+                .subscribe(ignored -> flush());
+    }
+
+    private void flush() {
+        final List<Entry<?>> entries;
+        synchronized (lock) {
+            flushSubscription = null;
+            entries = pendingEntries;
+            pendingEntries = new ArrayList<>();
+        }
+        final Map<String, Entry<?>> entriesById = new HashMap<>();
+        final List<BatchRequestItem> requestItems = new ArrayList<>();
+        for (final Entry<?> entry : entries) {
+            if (entry.isCancelled()) {
+                entry.onError(new IOException("Canceled"));
+                continue;
+            }
+            final String id = String.valueOf(requestItems.size());
+            entriesById.put(id, entry);
+            requestItems.add(entry.createRequestItem(id));
+        }
+        if (requestItems.isEmpty()) {
+            return;
+        }
+
+        try {
+            final Response batchResponse = new BatchRequest(batchUrl, new BatchRequestContent(requestItems)).executeSync();
+            try {
+                if (!batchResponse.isSuccessful()) {
+                    throw new IOException("Batch request " + batchUrl + " failed with code " + batchResponse.code());
+                }
+                readBatchResponse(batchResponse, entriesById);
+            } finally {
+                batchResponse.body().close();
+            }
+        } catch (final Exception exception) {
+            for (final Entry<?> entry : entriesById.values()) {
+                entry.onError(exception);
+            }
+            return;
+        }
+        for (final Entry<?> entry : entriesById.values()) {
+            entry.onError(new IOException("No response in batch for request " + entry.request.getUrl()));
+        }
+    }
+
+    /* Reads response items and passes them to entries. Entries that got response are removed from map */
+    private void readBatchResponse(@NonNull final Response batchResponse, @NonNull final Map<String, Entry<?>> entriesById) throws IOException {
+        final DepthTrackingJsonParser parser = new DepthTrackingJsonParser(AbstractJsonRequest.DEFAULT_JSON_FACTORY.createJsonParser(
+                batchResponse.body().byteStream(), AbstractHttpRequest.getCharset(batchResponse.body())));
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Response of batch request " + batchUrl + " is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && RESPONSES_FIELD.equals(fieldName)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readResponseItem(parser, entriesById);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    private void readResponseItem(@NonNull final DepthTrackingJsonParser parser, @NonNull final Map<String, Entry<?>> entriesById)
+            throws IOException {
+        Entry<?> entry = null;
+        int code = -1;
+        Object bufferedBody = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (ID_FIELD.equals(fieldName)) {
+                entry = entriesById.remove(parser.getText());
+            } else if (CODE_FIELD.equals(fieldName)) {
+                code = parser.getIntValue();
+            } else if (BODY_FIELD.equals(fieldName) && entry != null) {
+                final JsonToken bodyToken = parser.getCurrentToken();
+                final boolean isContainer = bodyToken == JsonToken.START_OBJECT || bodyToken == JsonToken.START_ARRAY;
+                final int bodyDepth = isContainer ? parser.getDepth() - 1 : parser.getDepth();
+                entry.readBody(parser);
+                // reading could fail in the middle of body so rest of it is skipped to keep other items readable
+                parser.skipToDepth(bodyDepth);
+            } else if (BODY_FIELD.equals(fieldName)) {
+                // id is not known yet so body is kept as generic value
+                bufferedBody = parser.parse(Object.class);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (entry == null) {
+            return;
+        }
+        if (bufferedBody != null) {
+            entry.readBody(bufferedBody);
+        }
+        entry.onResponse(code);
+    }
+
+    private static class Entry<T> {
+
+        @NonNull
+        private final AbstractJsonContentPostJsonRequest<T> request;
+        @NonNull
+        private final Subscriber<? super T> subscriber;
+        @Nullable
+        private T result;
+        @Nullable
+        private Exception readException;
+
+        public Entry(@NonNull final AbstractJsonContentPostJsonRequest<T> request, @NonNull final Subscriber<? super T> subscriber) {
+            this.request = request;
+            this.subscriber = subscriber;
+        }
+
+        public boolean isCancelled() {
+            return request.isCancelled() || subscriber.isUnsubscribed();
+        }
+
+        @NonNull
+        public BatchRequestItem createRequestItem(@NonNull final String id) {
+            final GenericUrl url = new GenericUrl(request.getUrl());
+            request.setupUrlParameters(url);
+            return new BatchRequestItem(id, METHOD_POST, url.build(), request.getContentObject());
+        }
+
+        public void readBody(@NonNull final JsonParser parser) throws IOException {
+            try {
+                result = request.readResponse(parser);
+            } catch (final RuntimeException exception) {
+                // parsing failed on value of this item, other items are still read
+                readException = exception;
+            }
+        }
+
+        /* Parses body that was read before id of response item */
+        public void readBody(@NonNull final Object body) {
+            try {
+                result = AbstractJsonRequest.DEFAULT_JSON_FACTORY.fromString(
+                        AbstractJsonRequest.DEFAULT_JSON_FACTORY.toString(body), request.getResponseResultType());
+            } catch (final IOException | IllegalArgumentException exception) {
+                readException = exception;
+            }
+        }
+
+        public void onResponse(final int code) {
+            if (isCancelled()) {
+                onError(new IOException("Canceled"));
+                return;
+            }
+            if (code < 200 || code >= 300) {
+                onError(new IOException("Batched request " + request.getUrl() + " failed with code " + code));
+                return;
+            }
+            if (readException != null) {
+                onError(readException);
+                return;
+            }
+            try {
+                if (result == null) {
+                    onError(new IOException("Response is null for batched request " + request.getUrl()));
+                    return;
+                }
+                subscriber.onNext(request.handleResponse(result));
+                subscriber.onCompleted();
+            } catch (final Exception exception) {
+                onError(exception);
+            }
+        }
+
+        public void onError(@NonNull final Throwable throwable) {
+            if (!subscriber.isUnsubscribed()) {
+                subscriber.onError(throwable);
+            }
+        }
+
+    }
+
+    private static class BatchRequest extends AbstractJsonContentPostJsonRequest<Response> {
+
+        @NonNull
+        private final String url;
+        @NonNull
+        private final BatchRequestContent content;
+
+        public BatchRequest(@NonNull final String url, @NonNull final BatchRequestContent content) {
+            super(Response.class);
+            this.url = url;
+            this.content = content;
+        }
+
+        @NonNull
+        @Override
+        protected String getUrl() {
+            return url;
+        }
+
+        @NonNull
+        @Override
+        protected Object getContentObject() {
+            return content;
+        }
+
+    }
+
+    public static class BatchRequestContent {
+
+        @Key("requests")
+        private List<BatchRequestItem> items;
+
+        public BatchRequestContent() {
+            // for serialization
+        }
+
+        public BatchRequestContent(@NonNull final List<BatchRequestItem> items) {
+            this.items = items;
+        }
+
+    }
+
+    public static class BatchRequestItem {
+
+        @Key
+        private String id;
+        @Key
+        private String method;
+        @Key
+        private String url;
+        @Key
+        private Object body;
+
+        public BatchRequestItem() {
+            // for serialization
+        }
+
+        public BatchRequestItem(@NonNull final String id, @NonNull final String method, @NonNull final String url, @NonNull final Object body) {
+            this.id = id;
+            this.method = method;
+            this.url = url;
+            this.body = body;
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import okio.ByteString;
+
+/**
+ * Stream that passes data through and keeps copy of first bytes of it.
+ * Used to log response content without buffering whole response.
+ */
+public class BoundedTeeInputStream extends FilterInputStream {
+
+    private final int maxCopySize;
+    @NonNull
+    private final ByteArrayOutputStream copy;
+    private long totalSize;
+
+    public BoundedTeeInputStream(@NonNull final InputStream inputStream, final int maxCopySize) {
+        super(inputStream);
+        this.maxCopySize = maxCopySize;
+        copy = new ByteArrayOutputStream(Math.min(maxCopySize, 8192));
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int result = super.read();
+        if (result != -1) {
+            if (copy.size() < maxCopySize) {
+                copy.write(result);
+            }
+            totalSize++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(@NonNull final byte[] buffer, final int offset, final int count) throws IOException {
+        final int result = super.read(buffer, offset, count);
+        if (result > 0) {
+            final int toCopy = Math.min(result, maxCopySize - copy.size());
+            if (toCopy > 0) {
+                copy.write(buffer, offset, toCopy);
+            }
+            totalSize += result;
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+        if (count <= 0) {
+            return 0;
+        }
+        // skipping bytes through read() to keep them in copy
+        final byte[] buffer = new byte[(int) Math.min(count, 8192)];
+        long skipped = 0;
+        while (skipped < count) {
+            final int read = read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+            if (read <= 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /* Returns count of bytes passed through stream */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /* Returns copied part of stream as string. Adds marker if stream was bigger than copied part */
+    @NonNull
+    public String getCopy(@NonNull final Charset charset) {
+        final String result = new String(copy.toByteArray(), charset);
+        return totalSize > copy.size() ? result + "... [" + (totalSize - copy.size()) + " more bytes]" : result;
+    }
+
+    /* Returns copied part of binary stream in hex. Adds marker if stream was bigger than copied part */
+    @NonNull
+    public String getHexCopy() {
+        final String result = ByteString.of(copy.toByteArray()).hex();
+        return totalSize > copy.size() ? result + "... [" + (totalSize - copy.size()) + " more bytes]" : result;
+    }
+
+}
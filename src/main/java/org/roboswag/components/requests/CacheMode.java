@@ -0,0 +1,32 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+/**
+ * Mode of {@link AbstractHttpRequest#execute(CacheMode)} that defines how response cache is used.
+ */
+public enum CacheMode {
+    /* Executes network request only. Result is still stored to cache if request has cache policy */
+    NETWORK_ONLY,
+    /* Emits cached value if it is fresh, else executes network request */
+    CACHE_ELSE_NETWORK,
+    /* Emits cached value if it is not older than max-stale time and then emits result of network request */
+    CACHE_THEN_NETWORK
+}
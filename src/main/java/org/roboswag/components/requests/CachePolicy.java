@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy of storing responses of request in {@link ResponseCache}.
+ * Cached response is fresh during time-to-live period and could be used as stale response during max-stale period after that.
+ */
+public class CachePolicy {
+
+    @NonNull
+    public static CachePolicy create(final long timeToLive, final long maxStale, @NonNull final TimeUnit timeUnit) {
+        return new CachePolicy(timeUnit.toMillis(timeToLive), timeUnit.toMillis(maxStale));
+    }
+
+    private final long timeToLiveMillis;
+    private final long maxStaleMillis;
+
+    public CachePolicy(final long timeToLiveMillis, final long maxStaleMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    /* Returns true if response cached at some time is still fresh */
+    public boolean isFresh(final long cachedTimeMillis) {
+        return System.currentTimeMillis() - cachedTimeMillis <= timeToLiveMillis;
+    }
+
+    /* Returns true if response cached at some time could be used as stale response */
+    public boolean isUsable(final long cachedTimeMillis) {
+        return System.currentTimeMillis() - cachedTimeMillis <= timeToLiveMillis + maxStaleMillis;
+    }
+
+}
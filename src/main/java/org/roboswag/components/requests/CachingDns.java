@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.squareup.okhttp.Dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DNS that caches resolved addresses for some time. Used by clients of {@link HttpClientRegistry}
+ * so hosts resolved by {@link ConnectionWarmer} are not resolved again by requests.
+ */
+public class CachingDns implements Dns {
+
+    private volatile long timeToLiveMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CachingDns(final long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /* Sets time to keep resolved addresses. Addresses that are already cached are checked against new time */
+    public void setTimeToLive(final long timeToLive, @NonNull final TimeUnit timeUnit) {
+        timeToLiveMillis = timeUnit.toMillis(timeToLive);
+    }
+
+    @NonNull
+    @Override
+    public List<InetAddress> lookup(@NonNull final String hostname) throws UnknownHostException {
+        final Entry entry = entries.get(hostname);
+        if (entry != null && System.currentTimeMillis() - entry.resolvedTimeMillis < timeToLiveMillis) {
+            return entry.addresses;
+        }
+        final List<InetAddress> result = Dns.SYSTEM.lookup(hostname);
+        entries.put(hostname, new Entry(result, System.currentTimeMillis()));
+        return result;
+    }
+
+    /* Drops cached addresses of host. Should be called if connection to resolved addresses failed */
+    public void invalidate(@NonNull final String hostname) {
+        entries.remove(hostname);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+
+        @NonNull
+        private final List<InetAddress> addresses;
+        private final long resolvedTimeMillis;
+
+        public Entry(@NonNull final List<InetAddress> addresses, final long resolvedTimeMillis) {
+            this.addresses = addresses;
+            this.resolvedTimeMillis = resolvedTimeMillis;
+        }
+
+    }
+
+}
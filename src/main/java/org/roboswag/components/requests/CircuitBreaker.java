@@ -0,0 +1,183 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Per-host circuit breaker. After several consecutive failures requests to host fail immediately during open period.
+ * After that one trial request is allowed and its result closes or opens breaker again.
+ */
+public class CircuitBreaker {
+
+    private static final int DEFAULT_FAILURES_THRESHOLD = 5;
+    private static final long DEFAULT_OPEN_DURATION_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new HashMap<>();
+    private static int defaultFailuresThreshold = DEFAULT_FAILURES_THRESHOLD;
+    private static long defaultOpenDurationMillis = DEFAULT_OPEN_DURATION_MILLIS;
+
+    /**
+     * Sets parameters of breakers. Applies only to breakers that are not created yet.
+     *
+     * @param failuresThreshold Count of consecutive failures to open breaker;
+     * @param openDuration      Time to fail fast before trial request;
+     * @param timeUnit          Unit of open duration.
+     */
+    public static void setDefaultParameters(final int failuresThreshold, final long openDuration, @NonNull final TimeUnit timeUnit) {
+        synchronized (BREAKERS) {
+            defaultFailuresThreshold = failuresThreshold;
+            defaultOpenDurationMillis = timeUnit.toMillis(openDuration);
+        }
+    }
+
+    @NonNull
+    public static CircuitBreaker forHost(@NonNull final String host) {
+        synchronized (BREAKERS) {
+            CircuitBreaker result = BREAKERS.get(host);
+            if (result == null) {
+                result = new CircuitBreaker(host, defaultFailuresThreshold, defaultOpenDurationMillis);
+                BREAKERS.put(host, result);
+            }
+            return result;
+        }
+    }
+
+    @NonNull
+    private final String host;
+    private final int failuresThreshold;
+    private final long openDurationMillis;
+    private final BehaviorSubject<State> stateSubject = BehaviorSubject.create(State.CLOSED);
+    @NonNull
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedTimeMillis;
+    private boolean isTrialInProgress;
+
+    protected CircuitBreaker(@NonNull final String host, final int failuresThreshold, final long openDurationMillis) {
+        this.host = host;
+        this.failuresThreshold = failuresThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    @NonNull
+    public String getHost() {
+        return host;
+    }
+
+    @NonNull
+    public State getState() {
+        synchronized (this) {
+            return state;
+        }
+    }
+
+    /* Returns observable of breaker state. Use it to show degraded UI while host is unhealthy */
+    @NonNull
+    public Observable<State> observeState() {
+        return stateSubject.distinctUntilChanged();
+    }
+
+    /**
+     * Checks if request to host is allowed.
+     *
+     * @throws OpenException Thrown if breaker is open.
+     */
+    public void checkRequestAllowed() throws OpenException {
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedTimeMillis < openDurationMillis) {
+                        throw new OpenException(host);
+                    }
+                    setState(State.HALF_OPEN);
+                    isTrialInProgress = true;
+                    return;
+                case HALF_OPEN:
+                    if (isTrialInProgress) {
+                        throw new OpenException(host);
+                    }
+                    isTrialInProgress = true;
+                    return;
+                default:
+                    return;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        synchronized (this) {
+            consecutiveFailures = 0;
+            isTrialInProgress = false;
+            setState(State.CLOSED);
+        }
+    }
+
+    public void onFailure() {
+        synchronized (this) {
+            consecutiveFailures++;
+            isTrialInProgress = false;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failuresThreshold) {
+                openedTimeMillis = System.currentTimeMillis();
+                setState(State.OPEN);
+            }
+        }
+    }
+
+    /* Releases trial request without changing state. Called if request was cancelled */
+    public void onCancelled() {
+        synchronized (this) {
+            isTrialInProgress = false;
+        }
+    }
+
+    private void setState(@NonNull final State state) {
+        this.state = state;
+        stateSubject.onNext(state);
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Exception of request that was not executed because breaker of its host is open.
+     */
+    public static class OpenException extends IOException {
+
+        public OpenException(@NonNull final String host) {
+            super("Circuit breaker is open for host " + host);
+        }
+
+    }
+
+}
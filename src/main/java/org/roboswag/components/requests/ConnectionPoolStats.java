@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Snapshot of connection pool state of some host from {@link HttpClientRegistry}.
+ */
+public class ConnectionPoolStats {
+
+    @NonNull
+    private final String host;
+    private final int idleConnectionsCount;
+    private final int connectionsCount;
+    private final int multiplexedConnectionsCount;
+    private final long requestsCount;
+    private final long reusedConnectionsCount;
+
+    public ConnectionPoolStats(@NonNull final String host,
+                               final int idleConnectionsCount,
+                               final int connectionsCount,
+                               final int multiplexedConnectionsCount,
+                               final long requestsCount,
+                               final long reusedConnectionsCount) {
+        this.host = host;
+        this.idleConnectionsCount = idleConnectionsCount;
+        this.connectionsCount = connectionsCount;
+        this.multiplexedConnectionsCount = multiplexedConnectionsCount;
+        this.requestsCount = requestsCount;
+        this.reusedConnectionsCount = reusedConnectionsCount;
+    }
+
+    @NonNull
+    public String getHost() {
+        return host;
+    }
+
+    public int getIdleConnectionsCount() {
+        return idleConnectionsCount;
+    }
+
+    public int getActiveConnectionsCount() {
+        return connectionsCount - idleConnectionsCount;
+    }
+
+    public int getMultiplexedConnectionsCount() {
+        return multiplexedConnectionsCount;
+    }
+
+    public long getRequestsCount() {
+        return requestsCount;
+    }
+
+    public long getReusedConnectionsCount() {
+        return reusedConnectionsCount;
+    }
+
+    /* Returns part of requests that were sent over already opened connection */
+    public float getReuseRatio() {
+        return requestsCount > 0 ? (float) reusedConnectionsCount / requestsCount : 0;
+    }
+
+    @Override
+    public String toString() {
+        return host + ": idle=" + idleConnectionsCount + ", active=" + getActiveConnectionsCount()
+                + ", multiplexed=" + multiplexedConnectionsCount + ", reuse=" + getReuseRatio();
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import org.roboswag.core.log.Lc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+/**
+ * Pre-warming of connections to hosts of requests at application start or before showing screen.
+ * Host is resolved to {@link HttpClientRegistry#getDns()} and HEAD request to its root is sent
+ * so connection (with TLS handshake) is kept in host's connection pool and is reused by next requests.
+ * Note that it is real request that reaches server (and its logs), redirects of it are not followed.
+ * Hosts which {@link CircuitBreaker} is not closed are skipped. Warm-up requests are not counted by {@link RateLimits}.
+ */
+public final class ConnectionWarmer {
+
+    /**
+     * Returns observable that warms up connections to hosts of requests in parallel on IO threads.
+     *
+     * @param requests Requests to hosts that will be used soon;
+     * @return Observable that emits hosts which connections are warmed up.
+     */
+    @NonNull
+    public static Observable<String> warmUp(@NonNull final AbstractHttpRequest<?>... requests) {
+        return Observable.defer(() -> {
+            final List<HttpUrl> urls = new ArrayList<>();
+            for (final AbstractHttpRequest<?> request : requests) {
+                try {
+                    urls.add(request.getRequest().httpUrl());
+                } catch (final IOException exception) {
+                    Lc.d("Can't create request to warm up connection: %s", exception);
+                }
+            }
+            return warmUp(urls);
+        });
+    }
+
+    /**
+     * Returns observable that warms up connections to hosts of URLs in parallel on IO threads.
+     *
+     * @param urls URLs of requests that will be used soon. Only scheme, host and port are used;
+     * @return Observable that emits hosts which connections are warmed up.
+     */
+    @NonNull
+    public static Observable<String> warmUp(@NonNull final String... urls) {
+        return Observable.defer(() -> {
+            final List<HttpUrl> parsedUrls = new ArrayList<>();
+            for (final String url : urls) {
+                final HttpUrl parsedUrl = HttpUrl.parse(url);
+                if (parsedUrl != null) {
+                    parsedUrls.add(parsedUrl);
+                } else {
+                    Lc.d("Can't warm up connection to invalid url %s", url);
+                }
+            }
+            return warmUp(parsedUrls);
+        });
+    }
+
+    @NonNull
+    private static Observable<String> warmUp(@NonNull final Collection<HttpUrl> urls) {
+        final Map<String, HttpUrl> rootUrls = new LinkedHashMap<>();
+        for (final HttpUrl url : urls) {
+            final HttpUrl rootUrl = new HttpUrl.Builder().scheme(url.scheme()).host(url.host()).port(url.port()).build();
+            rootUrls.put(rootUrl.toString(), rootUrl);
+        }
+        final List<Observable<String>> warmUps = new ArrayList<>();
+        for (final HttpUrl rootUrl : rootUrls.values()) {
+            warmUps.add(Observable.<String>create(subscriber -> {
+                try {
+                    warmUpSync(rootUrl);
+                    subscriber.onNext(rootUrl.host());
+                } catch (final IOException exception) {
+                    Lc.d("Can't warm up connection to %s: %s", rootUrl, exception);
+                }
+                subscriber.onCompleted();
+            }).subscribeOn(Schedulers.io()));
+        }
+        return Observable.merge(warmUps);
+    }
+
+    private static void warmUpSync(@NonNull final HttpUrl rootUrl) throws IOException {
+        // trial request of half-open breaker is left for real requests
+        if (CircuitBreaker.forHost(rootUrl.host()).getState() != CircuitBreaker.State.CLOSED) {
+            throw new CircuitBreaker.OpenException(rootUrl.host());
+        }
+        HttpClientRegistry.getDns().lookup(rootUrl.host());
+        // clone shares connection pool of host's client
+        final OkHttpClient client = HttpClientRegistry.getClient(rootUrl.host()).clone();
+        client.setFollowRedirects(false);
+        client.setFollowSslRedirects(false);
+        final Response response = client.newCall(new Request.Builder().url(rootUrl).head().build()).execute();
+        response.body().close();
+    }
+
+    private ConnectionWarmer() {
+    }
+
+}
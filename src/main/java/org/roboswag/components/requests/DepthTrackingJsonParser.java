@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Parser that counts nesting of arrays and objects of underlying parser.
+ * Used to skip rest of value if reading of value failed in the middle, so following values of stream could still be read.
+ */
+class DepthTrackingJsonParser extends JsonParser {
+
+    @NonNull
+    private final JsonParser parser;
+    private int depth;
+
+    public DepthTrackingJsonParser(@NonNull final JsonParser parser) {
+        super();
+        this.parser = parser;
+    }
+
+    /* Returns count of arrays and objects that are started and not ended at current token */
+    public int getDepth() {
+        return depth;
+    }
+
+    /* Reads tokens until all arrays and objects deeper than depth are ended */
+    public void skipToDepth(final int depth) throws IOException {
+        while (this.depth > depth) {
+            if (nextToken() == null) {
+                throw new IOException("Unexpected end of stream");
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    public JsonFactory getFactory() {
+        return parser.getFactory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        final JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+            depth++;
+        } else if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT) {
+            depth--;
+        }
+        return token;
+    }
+
+    @Override
+    public JsonToken getCurrentToken() {
+        return parser.getCurrentToken();
+    }
+
+    @Override
+    public String getCurrentName() throws IOException {
+        return parser.getCurrentName();
+    }
+
+    @NonNull
+    @Override
+    public JsonParser skipChildren() throws IOException {
+        final JsonToken token = getCurrentToken();
+        if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+            skipToDepth(depth - 1);
+        }
+        return this;
+    }
+
+    @Override
+    public String getText() throws IOException {
+        return parser.getText();
+    }
+
+    @Override
+    public byte getByteValue() throws IOException {
+        return parser.getByteValue();
+    }
+
+    @Override
+    public short getShortValue() throws IOException {
+        return parser.getShortValue();
+    }
+
+    @Override
+    public int getIntValue() throws IOException {
+        return parser.getIntValue();
+    }
+
+    @Override
+    public float getFloatValue() throws IOException {
+        return parser.getFloatValue();
+    }
+
+    @Override
+    public long getLongValue() throws IOException {
+        return parser.getLongValue();
+    }
+
+    @Override
+    public double getDoubleValue() throws IOException {
+        return parser.getDoubleValue();
+    }
+
+    @Override
+    public BigInteger getBigIntegerValue() throws IOException {
+        return parser.getBigIntegerValue();
+    }
+
+    @Override
+    public BigDecimal getDecimalValue() throws IOException {
+        return parser.getDecimalValue();
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Priority of one execution of request in {@link RequestScheduler}.
+ * It could be raised while execution is waiting for a slot, e.g. when foreground request attaches to prefetch.
+ */
+final class ExecutionPriority {
+
+    @NonNull
+    private volatile RequestPriority value;
+
+    ExecutionPriority(@NonNull final RequestPriority value) {
+        this.value = value;
+    }
+
+    @NonNull
+    RequestPriority get() {
+        return value;
+    }
+
+    /* Raises priority of execution and of its task that is waiting in RequestScheduler. Lower priority is ignored */
+    void promote(@NonNull final RequestPriority priority) {
+        synchronized (this) {
+            if (priority.compareTo(value) >= 0) {
+                return;
+            }
+            value = priority;
+        }
+        RequestScheduler.getInstance().promote(this);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import org.roboswag.core.log.Lc;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Blocking execution of call with duplicate that is sent after delay if there is still no response.
+ * First received response wins and other call is cancelled.
+ */
+class HedgedCall {
+
+    @NonNull
+    private final OkHttpClient client;
+    @NonNull
+    private final Call primaryCall;
+    @NonNull
+    private final HedgingPolicy hedgingPolicy;
+    private final long hedgeDelayMillis;
+    private final Object lock = new Object();
+    @Nullable
+    private Call hedgeCall;
+    @Nullable
+    private Response response;
+    @Nullable
+    private IOException failure;
+    private int startedCallsCount;
+    private int failedCallsCount;
+    private boolean isCancelled;
+
+    public HedgedCall(@NonNull final OkHttpClient client, @NonNull final Call primaryCall,
+                      @NonNull final HedgingPolicy hedgingPolicy, final long hedgeDelayMillis) {
+        this.client = client;
+        this.primaryCall = primaryCall;
+        this.hedgingPolicy = hedgingPolicy;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    @NonNull
+    public Response execute(@NonNull final Request request) throws IOException {
+        synchronized (lock) {
+            startedCallsCount = 1;
+        }
+        primaryCall.enqueue(new HedgeCallback(primaryCall));
+        try {
+            synchronized (lock) {
+                final long hedgeTimeMillis = System.currentTimeMillis() + hedgeDelayMillis;
+                long waitMillis = hedgeDelayMillis;
+                while (response == null && failedCallsCount < startedCallsCount && !isCancelled && waitMillis > 0) {
+                    lock.wait(waitMillis);
+                    waitMillis = hedgeTimeMillis - System.currentTimeMillis();
+                }
+                if (response == null && failedCallsCount < startedCallsCount && !isCancelled && hedgingPolicy.tryAcquireHedge()) {
+                    Lc.d("Sending hedged request %s", request.url());
+                    hedgeCall = client.newCall(request);
+                    startedCallsCount++;
+                    hedgeCall.enqueue(new HedgeCallback(hedgeCall));
+                }
+                while (response == null && failedCallsCount < startedCallsCount && !isCancelled) {
+                    lock.wait();
+                }
+                if (response != null) {
+                    return response;
+                }
+                if (isCancelled) {
+                    throw new IOException("Canceled");
+                }
+                throw failure != null ? failure : new IOException("Hedged request failed");
+            }
+        } catch (final InterruptedException exception) {
+            cancel();
+            throw new InterruptedIOException("Hedged request interrupted");
+        }
+    }
+
+    public void cancel() {
+        final Call currentHedgeCall;
+        synchronized (lock) {
+            isCancelled = true;
+            currentHedgeCall = hedgeCall;
+            lock.notifyAll();
+        }
+        primaryCall.cancel();
+        if (currentHedgeCall != null) {
+            currentHedgeCall.cancel();
+        }
+    }
+
+    private void onResponse(@NonNull final Call call, @NonNull final Response callResponse) throws IOException {
+        final Call loserCall;
+        synchronized (lock) {
+            if (response != null || isCancelled) {
+                callResponse.body().close();
+                return;
+            }
+            response = callResponse;
+            loserCall = call == primaryCall ? hedgeCall : primaryCall;
+            lock.notifyAll();
+        }
+        if (loserCall != null) {
+            loserCall.cancel();
+        }
+    }
+
+    private void onFailure(@NonNull final IOException exception) {
+        synchronized (lock) {
+            failedCallsCount++;
+            if (failure == null) {
+                failure = exception;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private class HedgeCallback implements Callback {
+
+        @NonNull
+        private final Call call;
+
+        public HedgeCallback(@NonNull final Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void onFailure(final Request request, final IOException exception) {
+            HedgedCall.this.onFailure(exception);
+        }
+
+        @Override
+        public void onResponse(final Response response) throws IOException {
+            HedgedCall.this.onResponse(call, response);
+        }
+
+    }
+
+}
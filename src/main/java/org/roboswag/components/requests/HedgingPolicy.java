@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Policy of hedging of idempotent requests: if response headers are not received during some percentile of recent
+ * times to first byte of endpoint then duplicate request is sent and first received response wins.
+ * Total latency is not used as it includes downloading and parsing of body which are not hedged.
+ * Count of duplicate requests is limited by budget that grows by some ratio on each request and is spent by each duplicate.
+ */
+public class HedgingPolicy {
+
+    @NonNull
+    public static final HedgingPolicy DEFAULT = new HedgingPolicy(0.95, 0.05, 20);
+
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final double maxExtraRequestsRatio;
+    private final long minSamplesCount;
+    private final Object lock = new Object();
+    private double budget;
+
+    /**
+     * @param percentile            Percentile of time to first byte of endpoint from 0 to 1 after which duplicate request is sent;
+     * @param maxExtraRequestsRatio Max ratio of duplicate requests to all requests with this policy (e.g. 0.05 for 5%);
+     * @param minSamplesCount       Min count of recorded times to first byte of endpoint to start hedging.
+     */
+    public HedgingPolicy(final double percentile, final double maxExtraRequestsRatio, final long minSamplesCount) {
+        this.percentile = percentile;
+        this.maxExtraRequestsRatio = maxExtraRequestsRatio;
+        this.minSamplesCount = minSamplesCount;
+    }
+
+    /**
+     * Returns delay after which duplicate request should be sent. Also adds budget for duplicates.
+     *
+     * @param endpoint Metrics endpoint of request;
+     * @return Delay or -1 if there is not enough times to first byte recorded for endpoint.
+     */
+    public long onRequestStarted(@NonNull final String endpoint) {
+        synchronized (lock) {
+            budget = Math.min(MAX_BUDGET, budget + maxExtraRequestsRatio);
+        }
+        final LatencyHistogram histogram = RequestMetricsCollector.getFirstByteHistogram(endpoint);
+        if (histogram == null || histogram.getCount() < minSamplesCount) {
+            return -1;
+        }
+        final long result = histogram.getPercentileMillis(percentile);
+        return result != Long.MAX_VALUE ? result : -1;
+    }
+
+    /* Spends budget for one duplicate request. Returns false if budget is exhausted */
+    public boolean tryAcquireHedge() {
+        synchronized (lock) {
+            if (budget < 1) {
+                return false;
+            }
+            budget -= 1;
+            return true;
+        }
+    }
+
+}
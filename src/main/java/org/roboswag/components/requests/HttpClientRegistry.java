@@ -0,0 +1,256 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of {@link OkHttpClient}s used by {@link AbstractHttpRequest}.
+ * Each host gets its own client with its own {@link ConnectionPool} so keep-alive connections and HTTP/2 sessions are reused between requests.
+ * All clients share one dispatcher, timeouts and protocols configuration. Only recently used hosts keep their clients.
+ */
+public final class HttpClientRegistry {
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    private static final long DEFAULT_KEEP_ALIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+    private static final long DEFAULT_DNS_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_HOSTS = 32;
+
+    private static final Object LOCK = new Object();
+    // least recently used hosts are dropped with their idle connections
+    private static final Map<String, HostEntry> HOST_ENTRIES = new LinkedHashMap<String, HostEntry>(MAX_HOSTS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(@NonNull final Map.Entry<String, HostEntry> eldest) {
+            if (size() <= MAX_HOSTS) {
+                return false;
+            }
+            eldest.getValue().connectionPool.evictAll();
+            return true;
+        }
+    };
+    private static final CachingDns DNS = new CachingDns(DEFAULT_DNS_TIME_TO_LIVE_MILLIS);
+
+    private static long connectTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private static long readTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private static long writeTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private static int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private static long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+    private static OkHttpClient baseClient;
+
+    /**
+     * Sets timeouts for all clients. Clients that are already created are recreated on next request.
+     *
+     * @param connectTimeout Connect timeout;
+     * @param readTimeout    Read timeout;
+     * @param writeTimeout   Write timeout;
+     * @param timeUnit       Unit of timeouts.
+     */
+    public static void setTimeouts(final long connectTimeout, final long readTimeout, final long writeTimeout, @NonNull final TimeUnit timeUnit) {
+        synchronized (LOCK) {
+            connectTimeoutMillis = timeUnit.toMillis(connectTimeout);
+            readTimeoutMillis = timeUnit.toMillis(readTimeout);
+            writeTimeoutMillis = timeUnit.toMillis(writeTimeout);
+            reset();
+        }
+    }
+
+    /**
+     * Sets parameters of per-host connection pools. Pools that are already created are evicted and recreated on next request.
+     *
+     * @param maxIdleConnections Max idle connections per host;
+     * @param keepAlive          Time to keep idle connection alive;
+     * @param timeUnit           Unit of keep alive time.
+     */
+    public static void setConnectionPoolParameters(final int maxIdleConnections, final long keepAlive, @NonNull final TimeUnit timeUnit) {
+        synchronized (LOCK) {
+            HttpClientRegistry.maxIdleConnections = maxIdleConnections;
+            keepAliveMillis = timeUnit.toMillis(keepAlive);
+            reset();
+        }
+    }
+
+    /**
+     * Sets time to keep resolved addresses of hosts. Cache ignores TTL of DNS records so it should not be longer than them.
+     * Cached addresses are dropped.
+     *
+     * @param timeToLive Time to keep resolved addresses. Zero disables caching;
+     * @param timeUnit   Unit of time to live.
+     */
+    public static void setDnsTimeToLive(final long timeToLive, @NonNull final TimeUnit timeUnit) {
+        DNS.setTimeToLive(timeToLive, timeUnit);
+        DNS.clear();
+    }
+
+    /**
+     * Returns shared client for host.
+     *
+     * @param host Host of request;
+     * @return Client with host's own connection pool.
+     */
+    @NonNull
+    public static OkHttpClient getClient(@NonNull final String host) {
+        synchronized (LOCK) {
+            HostEntry hostEntry = HOST_ENTRIES.get(host);
+            if (hostEntry == null) {
+                hostEntry = new HostEntry(getBaseClient(), maxIdleConnections, keepAliveMillis);
+                HOST_ENTRIES.put(host, hostEntry);
+            }
+            return hostEntry.client;
+        }
+    }
+
+    /* Returns DNS of all clients. Resolved addresses are cached for a minute by default, see setDnsTimeToLive() */
+    @NonNull
+    public static CachingDns getDns() {
+        return DNS;
+    }
+
+    /**
+     * Returns statistics of connection pool of host.
+     *
+     * @param host Host of requests;
+     * @return Statistics or empty statistics if there were no requests to host.
+     */
+    @NonNull
+    public static ConnectionPoolStats getStats(@NonNull final String host) {
+        synchronized (LOCK) {
+            final HostEntry hostEntry = HOST_ENTRIES.get(host);
+            return hostEntry != null ? hostEntry.createStats(host) : new ConnectionPoolStats(host, 0, 0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Returns statistics of connection pools of all hosts.
+     *
+     * @return Map of host to its statistics.
+     */
+    @NonNull
+    public static Map<String, ConnectionPoolStats> getAllStats() {
+        synchronized (LOCK) {
+            final Map<String, ConnectionPoolStats> result = new HashMap<>();
+            for (final Map.Entry<String, HostEntry> entry : HOST_ENTRIES.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().createStats(entry.getKey()));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Closes all idle connections, drops all clients and cached DNS addresses.
+     */
+    public static void evictAll() {
+        synchronized (LOCK) {
+            reset();
+            DNS.clear();
+        }
+    }
+
+    @NonNull
+    private static OkHttpClient getBaseClient() {
+        if (baseClient == null) {
+            baseClient = new OkHttpClient();
+            baseClient.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+            baseClient.setConnectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+            baseClient.setReadTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+            baseClient.setWriteTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+            baseClient.setDns(DNS);
+        }
+        return baseClient;
+    }
+
+    private static void reset() {
+        for (final HostEntry hostEntry : HOST_ENTRIES.values()) {
+            hostEntry.connectionPool.evictAll();
+        }
+        HOST_ENTRIES.clear();
+        baseClient = null;
+    }
+
+    private HttpClientRegistry() {
+    }
+
+    private static class HostEntry {
+
+        @NonNull
+        private final OkHttpClient client;
+        @NonNull
+        private final ConnectionPool connectionPool;
+        private final Set<Connection> seenConnections = Collections.newSetFromMap(new WeakHashMap<>());
+        private final AtomicLong requestsCount = new AtomicLong();
+        private final AtomicLong reusedConnectionsCount = new AtomicLong();
+
+        public HostEntry(@NonNull final OkHttpClient baseClient, final int maxIdleConnections, final long keepAliveMillis) {
+            connectionPool = new ConnectionPool(maxIdleConnections, keepAliveMillis);
+            client = baseClient.clone();
+            client.setConnectionPool(connectionPool);
+            client.networkInterceptors().add(chain -> {
+                final boolean isConnectionReused = onConnectionUsed(chain.connection());
+                // metrics are passed by tag as hedged calls are executed on threads of OkHttp dispatcher
+                final Object tag = chain.request().tag();
+                if (tag instanceof RequestMetrics) {
+                    final RequestMetrics metrics = (RequestMetrics) tag;
+                    final String contentLength = chain.request().header(CONTENT_LENGTH_HEADER);
+                    metrics.onNetworkStarted(isConnectionReused, contentLength != null ? Long.parseLong(contentLength) : -1);
+                }
+                return chain.proceed(chain.request());
+            });
+        }
+
+        private boolean onConnectionUsed(@NonNull final Connection connection) {
+            requestsCount.incrementAndGet();
+            synchronized (seenConnections) {
+                if (!seenConnections.add(connection)) {
+                    reusedConnectionsCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        @NonNull
+        public ConnectionPoolStats createStats(@NonNull final String host) {
+            return new ConnectionPoolStats(host,
+                    connectionPool.getIdleConnectionCount(),
+                    connectionPool.getConnectionCount(),
+                    connectionPool.getMultiplexedConnectionCount(),
+                    requestsCount.get(),
+                    reusedConnectionsCount.get());
+        }
+
+    }
+
+}
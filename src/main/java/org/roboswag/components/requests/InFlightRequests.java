@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rx.Observable;
+import rx.functions.Func0;
+
+/**
+ * Registry of requests that are executing right now.
+ * Identical requests (with same {@link AbstractHttpRequest#getCacheKey()} and type of response) share one network call and its result.
+ * Network call is cancelled only when last subscriber unsubscribes.
+ */
+public final class InFlightRequests {
+
+    private static final String KEY_SEPARATOR = "#";
+    private static final Map<String, Observable<?>> IN_FLIGHT = new HashMap<>();
+
+    /**
+     * Returns observable of request that is already executing or creates new one.
+     *
+     * @param cacheKey           Cache key of request;
+     * @param responseType       Type of result. Requests with different types are not shared;
+     * @param observableCreator  Creator of network observable that is called if there is no such request executing;
+     * @param <T>                Type of result;
+     * @return Observable shared between all subscribers while request is executing.
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <T> Observable<T> share(@NonNull final String cacheKey, @NonNull final Class<T> responseType,
+                                          @NonNull final Func0<Observable<T>> observableCreator) {
+        final String key = responseType.getName() + KEY_SEPARATOR + cacheKey;
+        synchronized (IN_FLIGHT) {
+            final Observable<T> inFlight = (Observable<T>) IN_FLIGHT.get(key);
+            if (inFlight != null) {
+                return inFlight;
+            }
+            final Observable<T>[] holder = new Observable[1];
+            holder[0] = observableCreator.call()
+                    .doOnTerminate(() -> remove(key, holder[0]))
+                    .doOnUnsubscribe(() -> remove(key, holder[0]))
+                    .replay(1)
+                    .refCount();
+            IN_FLIGHT.put(key, holder[0]);
+            return holder[0];
+        }
+    }
+
+    /* Returns count of requests that are executing right now */
+    public static int getInFlightCount() {
+        synchronized (IN_FLIGHT) {
+            return IN_FLIGHT.size();
+        }
+    }
+
+    private static void remove(@NonNull final String key, @NonNull final Observable<?> observable) {
+        synchronized (IN_FLIGHT) {
+            if (IN_FLIGHT.get(key) == observable) {
+                IN_FLIGHT.remove(key);
+            }
+        }
+    }
+
+    private InFlightRequests() {
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+/**
+ * {@link JsonFactory} over any Jackson streaming factory. Used to read and write binary formats with JSON data model
+ * (e.g. CBOR or Smile) by same parsers, generated {@link JsonAdapter}s and models with {@link com.google.api.client.util.Key} fields.
+ * Charset is ignored as binary formats are not text.
+ */
+public class JacksonStreamingFactory extends JsonFactory {
+
+    @NonNull
+    private final com.fasterxml.jackson.core.JsonFactory factory;
+
+    public JacksonStreamingFactory(@NonNull final com.fasterxml.jackson.core.JsonFactory factory) {
+        super();
+        this.factory = factory;
+    }
+
+    @NonNull
+    @Override
+    public JsonParser createJsonParser(@NonNull final InputStream in) throws IOException {
+        return new Parser(this, factory.createParser(in));
+    }
+
+    @NonNull
+    @Override
+    public JsonParser createJsonParser(@NonNull final InputStream in, final Charset charset) throws IOException {
+        return createJsonParser(in);
+    }
+
+    @NonNull
+    @Override
+    public JsonParser createJsonParser(@NonNull final String value) throws IOException {
+        return new Parser(this, factory.createParser(value));
+    }
+
+    @NonNull
+    @Override
+    public JsonParser createJsonParser(@NonNull final Reader reader) throws IOException {
+        return new Parser(this, factory.createParser(reader));
+    }
+
+    @NonNull
+    @Override
+    public JsonGenerator createJsonGenerator(@NonNull final OutputStream out, final Charset charset) throws IOException {
+        return new Generator(this, factory.createGenerator(out));
+    }
+
+    @NonNull
+    @Override
+    public JsonGenerator createJsonGenerator(@NonNull final Writer writer) throws IOException {
+        return new Generator(this, factory.createGenerator(writer));
+    }
+
+    private static class Parser extends JsonParser {
+
+        @NonNull
+        private final JacksonStreamingFactory factory;
+        @NonNull
+        private final com.fasterxml.jackson.core.JsonParser parser;
+
+        public Parser(@NonNull final JacksonStreamingFactory factory, @NonNull final com.fasterxml.jackson.core.JsonParser parser) {
+            super();
+            this.factory = factory;
+            this.parser = parser;
+        }
+
+        @NonNull
+        @Override
+        public JsonFactory getFactory() {
+            return factory;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            return convert(parser.nextToken());
+        }
+
+        @Override
+        public JsonToken getCurrentToken() {
+            return convert(parser.getCurrentToken());
+        }
+
+        @Override
+        public String getCurrentName() throws IOException {
+            return parser.getCurrentName();
+        }
+
+        @NonNull
+        @Override
+        public JsonParser skipChildren() throws IOException {
+            parser.skipChildren();
+            return this;
+        }
+
+        @Override
+        public String getText() throws IOException {
+            return parser.getText();
+        }
+
+        @Override
+        public byte getByteValue() throws IOException {
+            return parser.getByteValue();
+        }
+
+        @Override
+        public short getShortValue() throws IOException {
+            return parser.getShortValue();
+        }
+
+        @Override
+        public int getIntValue() throws IOException {
+            return parser.getIntValue();
+        }
+
+        @Override
+        public float getFloatValue() throws IOException {
+            return parser.getFloatValue();
+        }
+
+        @Override
+        public long getLongValue() throws IOException {
+            return parser.getLongValue();
+        }
+
+        @Override
+        public double getDoubleValue() throws IOException {
+            return parser.getDoubleValue();
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() throws IOException {
+            return parser.getBigIntegerValue();
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() throws IOException {
+            return parser.getDecimalValue();
+        }
+
+        private static JsonToken convert(final com.fasterxml.jackson.core.JsonToken token) {
+            if (token == null) {
+                return null;
+            }
+            switch (token) {
+                case START_ARRAY:
+                    return JsonToken.START_ARRAY;
+                case END_ARRAY:
+                    return JsonToken.END_ARRAY;
+                case START_OBJECT:
+                    return JsonToken.START_OBJECT;
+                case END_OBJECT:
+                    return JsonToken.END_OBJECT;
+                case FIELD_NAME:
+                    return JsonToken.FIELD_NAME;
+                case VALUE_STRING:
+                    return JsonToken.VALUE_STRING;
+                case VALUE_NUMBER_INT:
+                    return JsonToken.VALUE_NUMBER_INT;
+                case VALUE_NUMBER_FLOAT:
+                    return JsonToken.VALUE_NUMBER_FLOAT;
+                case VALUE_TRUE:
+                    return JsonToken.VALUE_TRUE;
+                case VALUE_FALSE:
+                    return JsonToken.VALUE_FALSE;
+                case VALUE_NULL:
+                    return JsonToken.VALUE_NULL;
+                default:
+                    return JsonToken.NOT_AVAILABLE;
+            }
+        }
+
+    }
+
+    private static class Generator extends JsonGenerator {
+
+        @NonNull
+        private final JacksonStreamingFactory factory;
+        @NonNull
+        private final com.fasterxml.jackson.core.JsonGenerator generator;
+
+        public Generator(@NonNull final JacksonStreamingFactory factory, @NonNull final com.fasterxml.jackson.core.JsonGenerator generator) {
+            super();
+            this.factory = factory;
+            this.generator = generator;
+        }
+
+        @NonNull
+        @Override
+        public JsonFactory getFactory() {
+            return factory;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+
+        @Override
+        public void writeStartArray() throws IOException {
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void writeEndArray() throws IOException {
+            generator.writeEndArray();
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            generator.writeStartObject();
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void writeFieldName(final String name) throws IOException {
+            generator.writeFieldName(name);
+        }
+
+        @Override
+        public void writeNull() throws IOException {
+            generator.writeNull();
+        }
+
+        @Override
+        public void writeString(final String value) throws IOException {
+            generator.writeString(value);
+        }
+
+        @Override
+        public void writeBoolean(final boolean state) throws IOException {
+            generator.writeBoolean(state);
+        }
+
+        @Override
+        public void writeNumber(final int value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final long value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final BigInteger value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final float value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final double value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final BigDecimal value) throws IOException {
+            generator.writeNumber(value);
+        }
+
+        @Override
+        public void writeNumber(final String encodedValue) throws IOException {
+            generator.writeNumber(encodedValue);
+        }
+
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Reflection-free reader and writer of JSON value. Implementations for {@link JsonModel}s are generated by annotation processor.
+ */
+public interface JsonAdapter<T> {
+
+    /**
+     * Reads value from parser.
+     *
+     * @param parser Parser which current token is first token of value;
+     * @return Value or null if JSON value is null.
+     * @throws IOException Exception during reading.
+     */
+    @Nullable
+    T read(@NonNull JsonParser parser) throws IOException;
+
+    /**
+     * Writes value to generator.
+     *
+     * @param generator Generator to write to;
+     * @param value     Value to write;
+     * @throws IOException Exception during writing.
+     */
+    void write(@NonNull JsonGenerator generator, @Nullable T value) throws IOException;
+
+}
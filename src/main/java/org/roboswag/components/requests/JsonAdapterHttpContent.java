@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON content that is serialized by generated {@link JsonAdapter} instead of reflection.
+ */
+public class JsonAdapterHttpContent<T> extends AbstractHttpContent {
+
+    @NonNull
+    private final JsonFactory jsonFactory;
+    @NonNull
+    private final JsonAdapter<T> adapter;
+    @NonNull
+    private final T data;
+
+    public JsonAdapterHttpContent(@NonNull final JsonFactory jsonFactory, @NonNull final JsonAdapter<T> adapter, @NonNull final T data) {
+        super(Json.MEDIA_TYPE);
+        this.jsonFactory = jsonFactory;
+        this.adapter = adapter;
+        this.data = data;
+    }
+
+    @Override
+    public void writeTo(@NonNull final OutputStream out) throws IOException {
+        final JsonGenerator generator = jsonFactory.createJsonGenerator(out, getCharset());
+        adapter.write(generator, data);
+        generator.flush();
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.util.ObjectParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+
+/**
+ * Parser of responses that uses generated {@link JsonAdapter} instead of reflection.
+ */
+public class JsonAdapterObjectParser implements ObjectParser {
+
+    @NonNull
+    private final JsonFactory jsonFactory;
+    @NonNull
+    private final JsonAdapter<?> adapter;
+
+    public JsonAdapterObjectParser(@NonNull final JsonFactory jsonFactory, @NonNull final JsonAdapter<?> adapter) {
+        this.jsonFactory = jsonFactory;
+        this.adapter = adapter;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T parseAndClose(@NonNull final InputStream in, @NonNull final Charset charset, @NonNull final Class<T> dataClass) throws IOException {
+        return (T) parseAndClose(jsonFactory.createJsonParser(in, charset));
+    }
+
+    @Override
+    public Object parseAndClose(@NonNull final InputStream in, @NonNull final Charset charset, @NonNull final Type dataType) throws IOException {
+        return parseAndClose(jsonFactory.createJsonParser(in, charset));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T parseAndClose(@NonNull final Reader reader, @NonNull final Class<T> dataClass) throws IOException {
+        return (T) parseAndClose(jsonFactory.createJsonParser(reader));
+    }
+
+    @Override
+    public Object parseAndClose(@NonNull final Reader reader, @NonNull final Type dataType) throws IOException {
+        return parseAndClose(jsonFactory.createJsonParser(reader));
+    }
+
+    private Object parseAndClose(@NonNull final JsonParser parser) throws IOException {
+        try {
+            return parser.nextToken() != null ? adapter.read(parser) : null;
+        } finally {
+            parser.close();
+        }
+    }
+
+}
@@ -0,0 +1,305 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.api.client.json.JsonGenerator;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup of generated {@link JsonAdapter}s and adapters of basic values used by generated code.
+ */
+public final class JsonAdapters {
+
+    /* Suffix of class name of generated adapter of some model */
+    public static final String GENERATED_ADAPTER_SUFFIX = "$$JsonAdapter";
+
+    private static final Object NO_ADAPTER = new Object();
+    private static final Map<Class<?>, Object> ADAPTERS = new ConcurrentHashMap<>();
+
+    @NonNull
+    public static final JsonAdapter<String> STRING = new JsonAdapter<String>() {
+
+        @Nullable
+        @Override
+        public String read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, String.class);
+            return parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final String value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeString(value);
+            }
+        }
+
+    };
+
+    @NonNull
+    public static final JsonAdapter<Integer> INTEGER = new JsonAdapter<Integer>() {
+
+        @Nullable
+        @Override
+        public Integer read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, Integer.class);
+            switch (parser.getCurrentToken()) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return Integer.valueOf(parser.getText());
+                default:
+                    return parser.getIntValue();
+            }
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final Integer value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+    };
+
+    @NonNull
+    public static final JsonAdapter<Long> LONG = new JsonAdapter<Long>() {
+
+        @Nullable
+        @Override
+        public Long read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, Long.class);
+            switch (parser.getCurrentToken()) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return Long.valueOf(parser.getText());
+                default:
+                    return parser.getLongValue();
+            }
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final Long value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+    };
+
+    @NonNull
+    public static final JsonAdapter<Double> DOUBLE = new JsonAdapter<Double>() {
+
+        @Nullable
+        @Override
+        public Double read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, Double.class);
+            switch (parser.getCurrentToken()) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return Double.valueOf(parser.getText());
+                default:
+                    return parser.getDoubleValue();
+            }
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final Double value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+    };
+
+    @NonNull
+    public static final JsonAdapter<Float> FLOAT = new JsonAdapter<Float>() {
+
+        @Nullable
+        @Override
+        public Float read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, Float.class);
+            switch (parser.getCurrentToken()) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return Float.valueOf(parser.getText());
+                default:
+                    return parser.getFloatValue();
+            }
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final Float value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+    };
+
+    @NonNull
+    public static final JsonAdapter<Boolean> BOOLEAN = new JsonAdapter<Boolean>() {
+
+        @Nullable
+        @Override
+        public Boolean read(@NonNull final JsonParser parser) throws IOException {
+            checkValueToken(parser, Boolean.class);
+            switch (parser.getCurrentToken()) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return Boolean.valueOf(parser.getText());
+                default:
+                    return parser.getCurrentToken() == JsonToken.VALUE_TRUE;
+            }
+        }
+
+        @Override
+        public void write(@NonNull final JsonGenerator generator, @Nullable final Boolean value) throws IOException {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeBoolean(value);
+            }
+        }
+
+    };
+
+    /* Adapters of numbers that are written as JSON strings. Used for fields annotated with com.google.api.client.json.JsonString */
+    @NonNull
+    public static final JsonAdapter<Integer> INTEGER_AS_STRING = asString(INTEGER);
+    @NonNull
+    public static final JsonAdapter<Long> LONG_AS_STRING = asString(LONG);
+    @NonNull
+    public static final JsonAdapter<Double> DOUBLE_AS_STRING = asString(DOUBLE);
+    @NonNull
+    public static final JsonAdapter<Float> FLOAT_AS_STRING = asString(FLOAT);
+
+    /**
+     * Returns generated adapter of model.
+     *
+     * @param modelClass Class of model annotated with {@link JsonModel};
+     * @param <T>        Type of model;
+     * @return Adapter or null if there is no generated adapter for that class.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public static <T> JsonAdapter<T> get(@NonNull final Class<T> modelClass) {
+        Object result = ADAPTERS.get(modelClass);
+        if (result == null) {
+            try {
+                result = Class.forName(modelClass.getName() + GENERATED_ADAPTER_SUFFIX, true, modelClass.getClassLoader()).newInstance();
+            } catch (final ClassNotFoundException | InstantiationException | IllegalAccessException exception) {
+                result = NO_ADAPTER;
+            }
+            ADAPTERS.put(modelClass, result);
+        }
+        return result != NO_ADAPTER ? (JsonAdapter<T>) result : null;
+    }
+
+    /* Reads JSON array with elements adapter. Used by generated code */
+    @Nullable
+    public static <T> List<T> readList(@NonNull final JsonParser parser, @NonNull final JsonAdapter<T> elementAdapter) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        final JsonToken token = parser.getCurrentToken();
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("Expected JSON array but was " + token);
+        }
+        final List<T> result = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            result.add(elementAdapter.read(parser));
+        }
+        return result;
+    }
+
+    /* Writes JSON array with elements adapter. Used by generated code */
+    public static <T> void writeList(@NonNull final JsonGenerator generator, @Nullable final List<T> value,
+                                     @NonNull final JsonAdapter<T> elementAdapter) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (final T element : value) {
+            elementAdapter.write(generator, element);
+        }
+        generator.writeEndArray();
+    }
+
+    /* Throws if current token is object or array instead of value. Parser is moved to end of that object or array */
+    private static void checkValueToken(@NonNull final JsonParser parser, @NonNull final Class<?> valueType) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            throw new IllegalArgumentException("Expected " + valueType.getSimpleName() + " value but was " + token);
+        }
+    }
+
+    @NonNull
+    private static <T extends Number> JsonAdapter<T> asString(@NonNull final JsonAdapter<T> numberAdapter) {
+        return new JsonAdapter<T>() {
+
+            @Nullable
+            @Override
+            public T read(@NonNull final JsonParser parser) throws IOException {
+                return numberAdapter.read(parser);
+            }
+
+            @Override
+            public void write(@NonNull final JsonGenerator generator, @Nullable final T value) throws IOException {
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+
+        };
+    }
+
+    private JsonAdapters() {
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies with fixed buckets.
+ * Percentiles are approximated by upper bounds of buckets.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, Long.MAX_VALUE};
+
+    @NonNull
+    public static long[] getBucketBoundsMillis() {
+        return BUCKET_BOUNDS_MILLIS.clone();
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length);
+
+    public void record(final long latencyMillis) {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            if (latencyMillis <= BUCKET_BOUNDS_MILLIS[i]) {
+                counts.incrementAndGet(i);
+                return;
+            }
+        }
+    }
+
+    public long getCount() {
+        long result = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /* Returns counts of latencies per bucket. Bounds of buckets are returned by getBucketBoundsMillis() */
+    @NonNull
+    public long[] getBucketCounts() {
+        final long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns approximated percentile of latency.
+     *
+     * @param percentile Percentile from 0 to 1;
+     * @return Upper bound of bucket of percentile or -1 if there is no recorded latencies.
+     */
+    public long getPercentileMillis(final double percentile) {
+        final long[] bucketCounts = getBucketCounts();
+        long total = 0;
+        for (final long count : bucketCounts) {
+            total += count;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        final long threshold = (long) Math.ceil(total * percentile);
+        long cumulative = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            cumulative += bucketCounts[i];
+            if (cumulative >= threshold) {
+                return BUCKET_BOUNDS_MILLIS[i];
+            }
+        }
+        return BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1];
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream that counts bytes read from it and time spent waiting for them.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private long bytesCount;
+    private long readNanos;
+
+    public MeteredInputStream(@NonNull final InputStream inputStream) {
+        super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final long startNanos = System.nanoTime();
+        final int result = super.read();
+        readNanos += System.nanoTime() - startNanos;
+        if (result != -1) {
+            bytesCount++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(@NonNull final byte[] buffer, final int offset, final int count) throws IOException {
+        final long startNanos = System.nanoTime();
+        final int result = super.read(buffer, offset, count);
+        readNanos += System.nanoTime() - startNanos;
+        if (result > 0) {
+            bytesCount += result;
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+        final long startNanos = System.nanoTime();
+        final long result = super.skip(count);
+        readNanos += System.nanoTime() - startNanos;
+        bytesCount += result;
+        return result;
+    }
+
+    public long getBytesCount() {
+        return bytesCount;
+    }
+
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+}
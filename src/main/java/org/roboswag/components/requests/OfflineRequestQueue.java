@@ -0,0 +1,416 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.api.client.util.Charsets;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+
+import org.roboswag.components.network.NetworkStateObserver;
+import org.roboswag.core.log.Lc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import okio.Buffer;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+
+/**
+ * Durable queue of outgoing requests (usually POSTs) that should be delivered even if network or process is lost.
+ * Requests are stored in append-only log file and are sent one by one in order of enqueueing.
+ * Failed sends are retried with backoff while network is available. Log is compacted when most of its records are completed.
+ * Request enqueued with coalesce key supersedes waiting request with same key.
+ * Responses are not parsed: request is completed on 2xx or on client error other than 408 and 429.
+ */
+public class OfflineRequestQueue {
+
+    private static final byte RECORD_ENQUEUED = 1;
+    private static final byte RECORD_COMPLETED = 2;
+    private static final int COMPACTION_MIN_COMPLETED_RECORDS = 64;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int HTTP_CLIENT_ERROR_CODE = 400;
+    private static final int HTTP_SERVER_ERROR_CODE = 500;
+    private static final int HTTP_REQUEST_TIMEOUT_CODE = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS_CODE = 429;
+
+    @NonNull
+    private final File file;
+    @NonNull
+    private final RetryPolicy retryPolicy;
+    private final Scheduler scheduler = Schedulers.from(Executors.newSingleThreadExecutor());
+    private final Object lock = new Object();
+    private final Map<Long, Entry> pendingEntries = new LinkedHashMap<>();
+    private final BehaviorSubject<Integer> pendingCountSubject = BehaviorSubject.create();
+    private FileOutputStream fileOutputStream;
+    private DataOutputStream logOutputStream;
+    private long nextId;
+    private int completedRecordsCount;
+    @Nullable
+    private Entry sendingEntry;
+    @Nullable
+    private Subscription retrySubscription;
+    private int failedAttempts;
+    private boolean isNetworkAvailable = true;
+
+    /**
+     * Creates queue and loads requests stored in log file. Should not be called on UI thread.
+     *
+     * @param file        Log file of queue;
+     * @param retryPolicy Policy of delays between send attempts. Max retries count of policy is ignored;
+     * @throws IOException Exception during loading of log file.
+     */
+    public OfflineRequestQueue(@NonNull final File file, @NonNull final RetryPolicy retryPolicy) throws IOException {
+        this.file = file;
+        this.retryPolicy = retryPolicy;
+        synchronized (lock) {
+            load();
+            compact();
+        }
+        final int pendingCount = getPendingCount();
+        pendingCountSubject.onNext(pendingCount);
+        if (pendingCount > 0) {
+            scheduleSending(0);
+        }
+    }
+
+    /**
+     * Stores request in queue and starts sending if network is available. Request is durable when method returns.
+     *
+     * @param request     Request to send;
+     * @param coalesceKey Key of request that supersedes waiting requests with same key or null;
+     * @throws IOException Exception during writing to log file.
+     */
+    public void enqueue(@NonNull final AbstractHttpRequest<?> request, @Nullable final String coalesceKey) throws IOException {
+        final Request httpRequest = request.getRequest();
+        final RequestBody body = httpRequest.body();
+        final Buffer bodyBuffer = new Buffer();
+        if (body != null) {
+            body.writeTo(bodyBuffer);
+        }
+        final MediaType mediaType = body != null ? body.contentType() : null;
+        synchronized (lock) {
+            if (coalesceKey != null) {
+                final Iterator<Entry> iterator = pendingEntries.values().iterator();
+                while (iterator.hasNext()) {
+                    final Entry entry = iterator.next();
+                    if (coalesceKey.equals(entry.coalesceKey) && entry != sendingEntry) {
+                        writeCompletedRecord(entry.id);
+                        iterator.remove();
+                    }
+                }
+            }
+            final Entry entry = new Entry(nextId++, coalesceKey, httpRequest.method(), httpRequest.urlString(), httpRequest.headers(),
+                    mediaType != null ? mediaType.toString() : null, bodyBuffer.readByteArray());
+            writeEnqueuedRecord(logOutputStream, entry);
+            sync();
+            pendingEntries.put(entry.id, entry);
+        }
+        pendingCountSubject.onNext(getPendingCount());
+        scheduleSending(0);
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingEntries.size();
+        }
+    }
+
+    @NonNull
+    public Observable<Integer> observePendingCount() {
+        return pendingCountSubject.distinctUntilChanged();
+    }
+
+    /* Sets network state. Sending is paused while network is not available and restarted immediately when it becomes available */
+    public void setNetworkAvailable(final boolean isNetworkAvailable) {
+        synchronized (lock) {
+            this.isNetworkAvailable = isNetworkAvailable;
+            if (isNetworkAvailable) {
+                failedAttempts = 0;
+            }
+        }
+        if (isNetworkAvailable) {
+            scheduleSending(0);
+        }
+    }
+
+    /* Starts observing network state. Unsubscribe to stop observing */
+    @NonNull
+    public Subscription observeNetworkState(@NonNull final Context context) {
+        return NetworkStateObserver.getInstance(context).observeIsConnected().subscribe(this::setNetworkAvailable);
+    }
+
+    private void scheduleSending(final long delayMillis) {
+        synchronized (lock) {
+            if (retrySubscription != null) {
+                retrySubscription.unsubscribe();
+            }
+            retrySubscription = Observable.timer(delayMillis, TimeUnit.MILLISECONDS, scheduler).subscribe(ignored -> sendNext(), Lc::assertion);
+        }
+    }
+
+    private void sendNext() {
+        final Entry entry;
+        synchronized (lock) {
+            retrySubscription = null;
+            if (sendingEntry != null || !isNetworkAvailable || pendingEntries.isEmpty()) {
+                return;
+            }
+            entry = pendingEntries.values().iterator().next();
+            sendingEntry = entry;
+        }
+        final long nextDelayMillis;
+        try {
+            nextDelayMillis = onSendingFinished(entry, send(entry));
+        } finally {
+            synchronized (lock) {
+                sendingEntry = null;
+            }
+        }
+        scheduleSending(nextDelayMillis);
+    }
+
+    /* Returns true if entry shouldn't be sent anymore */
+    private boolean send(@NonNull final Entry entry) {
+        final boolean isCompleted;
+        try {
+            final Request request = entry.createRequest();
+            final Response response = HttpClientRegistry.getClient(request.httpUrl().host()).newCall(request).execute();
+            response.body().close();
+            final int code = response.code();
+            isCompleted = code < HTTP_CLIENT_ERROR_CODE
+                    || (code < HTTP_SERVER_ERROR_CODE && code != HTTP_REQUEST_TIMEOUT_CODE && code != HTTP_TOO_MANY_REQUESTS_CODE);
+            if (code >= HTTP_CLIENT_ERROR_CODE) {
+                Lc.d("Offline request %s failed with code %s", entry.url, code);
+            }
+        } catch (final IOException exception) {
+            Lc.d("Offline request %s failed: %s", entry.url, exception);
+            isCompleted = false;
+        } catch (final RuntimeException exception) {
+            // e.g. malformed stored url or headers, such entry will never be sent so it is dropped
+            Lc.d("Offline request %s is dropped: %s", entry.url, exception);
+            isCompleted = true;
+        }
+        return isCompleted;
+    }
+
+    /* Returns delay before sending of next entry */
+    private long onSendingFinished(@NonNull final Entry entry, final boolean isCompleted) {
+        final long nextDelayMillis;
+        synchronized (lock) {
+            if (isCompleted) {
+                failedAttempts = 0;
+                pendingEntries.remove(entry.id);
+                try {
+                    writeCompletedRecord(entry.id);
+                    if (completedRecordsCount >= COMPACTION_MIN_COMPLETED_RECORDS && completedRecordsCount > pendingEntries.size()) {
+                        compact();
+                    }
+                } catch (final IOException exception) {
+                    Lc.d("Can't write completion of offline request to %s: %s", file, exception);
+                }
+                nextDelayMillis = 0;
+            } else {
+                failedAttempts++;
+                nextDelayMillis = retryPolicy.getDelayMillis(failedAttempts);
+            }
+        }
+        if (isCompleted) {
+            pendingCountSubject.onNext(getPendingCount());
+        }
+        return nextDelayMillis;
+    }
+
+    private void load() throws IOException {
+        pendingEntries.clear();
+        if (!file.exists()) {
+            return;
+        }
+        final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            while (true) {
+                final byte recordType = inputStream.readByte();
+                if (recordType == RECORD_ENQUEUED) {
+                    final Entry entry = readEnqueuedRecord(inputStream);
+                    pendingEntries.put(entry.id, entry);
+                    nextId = Math.max(nextId, entry.id + 1);
+                } else if (recordType == RECORD_COMPLETED) {
+                    pendingEntries.remove(inputStream.readLong());
+                } else {
+                    Lc.d("Unknown record in offline queue %s, rest of log is dropped", file);
+                    break;
+                }
+            }
+        } catch (final EOFException exception) {
+            // end of log or record that was not fully written before process death
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void compact() throws IOException {
+        if (logOutputStream != null) {
+            logOutputStream.close();
+        }
+        final File tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+        final FileOutputStream tempFileOutputStream = new FileOutputStream(tempFile);
+        final DataOutputStream tempOutputStream = new DataOutputStream(new BufferedOutputStream(tempFileOutputStream));
+        try {
+            for (final Entry entry : pendingEntries.values()) {
+                writeEnqueuedRecord(tempOutputStream, entry);
+            }
+            tempOutputStream.flush();
+            tempFileOutputStream.getFD().sync();
+        } finally {
+            tempOutputStream.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Can't replace offline queue log " + file);
+        }
+        fileOutputStream = new FileOutputStream(file, true);
+        logOutputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+        completedRecordsCount = 0;
+    }
+
+    private void writeCompletedRecord(final long id) throws IOException {
+        logOutputStream.writeByte(RECORD_COMPLETED);
+        logOutputStream.writeLong(id);
+        sync();
+        completedRecordsCount++;
+    }
+
+    private void sync() throws IOException {
+        logOutputStream.flush();
+        fileOutputStream.getFD().sync();
+    }
+
+    private static void writeEnqueuedRecord(@NonNull final DataOutputStream outputStream, @NonNull final Entry entry) throws IOException {
+        outputStream.writeByte(RECORD_ENQUEUED);
+        outputStream.writeLong(entry.id);
+        outputStream.writeBoolean(entry.coalesceKey != null);
+        if (entry.coalesceKey != null) {
+            writeString(outputStream, entry.coalesceKey);
+        }
+        writeString(outputStream, entry.method);
+        writeString(outputStream, entry.url);
+        outputStream.writeInt(entry.headers.size());
+        for (int i = 0; i < entry.headers.size(); i++) {
+            writeString(outputStream, entry.headers.name(i));
+            writeString(outputStream, entry.headers.value(i));
+        }
+        outputStream.writeBoolean(entry.mediaType != null);
+        if (entry.mediaType != null) {
+            writeString(outputStream, entry.mediaType);
+        }
+        outputStream.writeInt(entry.body.length);
+        outputStream.write(entry.body);
+    }
+
+    @NonNull
+    private static Entry readEnqueuedRecord(@NonNull final DataInputStream inputStream) throws IOException {
+        final long id = inputStream.readLong();
+        final String coalesceKey = inputStream.readBoolean() ? readString(inputStream) : null;
+        final String method = readString(inputStream);
+        final String url = readString(inputStream);
+        final int headersCount = inputStream.readInt();
+        final Headers.Builder headersBuilder = new Headers.Builder();
+        for (int i = 0; i < headersCount; i++) {
+            headersBuilder.add(readString(inputStream), readString(inputStream));
+        }
+        final String mediaType = inputStream.readBoolean() ? readString(inputStream) : null;
+        final byte[] body = new byte[inputStream.readInt()];
+        inputStream.readFully(body);
+        return new Entry(id, coalesceKey, method, url, headersBuilder.build(), mediaType, body);
+    }
+
+    /* Writes string as length and UTF-8 bytes as writeUTF is limited to 64KB */
+    private static void writeString(@NonNull final DataOutputStream outputStream, @NonNull final String value) throws IOException {
+        final byte[] bytes = value.getBytes(Charsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    @NonNull
+    private static String readString(@NonNull final DataInputStream inputStream) throws IOException {
+        final byte[] bytes = new byte[inputStream.readInt()];
+        inputStream.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    private static class Entry {
+
+        private final long id;
+        @Nullable
+        private final String coalesceKey;
+        @NonNull
+        private final String method;
+        @NonNull
+        private final String url;
+        @NonNull
+        private final Headers headers;
+        @Nullable
+        private final String mediaType;
+        @NonNull
+        private final byte[] body;
+
+        public Entry(final long id, @Nullable final String coalesceKey, @NonNull final String method, @NonNull final String url,
+                     @NonNull final Headers headers, @Nullable final String mediaType, @NonNull final byte[] body) {
+            this.id = id;
+            this.coalesceKey = coalesceKey;
+            this.method = method;
+            this.url = url;
+            this.headers = headers;
+            this.mediaType = mediaType;
+            this.body = body;
+        }
+
+        @NonNull
+        public Request createRequest() {
+            final RequestBody requestBody = mediaType != null || body.length > 0
+                    ? RequestBody.create(mediaType != null ? MediaType.parse(mediaType) : null, body)
+                    : null;
+            return new Request.Builder().url(url).headers(headers).method(method, requestBody).build();
+        }
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+/**
+ * Stage of requests pipeline that parses downloaded responses and handles them.
+ * It has CPU-sized pool of threads and its own queue so heavy parsing doesn't hold network threads of {@link RequestScheduler}.
+ */
+public final class ParsingStage {
+
+    private static final String STAGE_NAME = "parsing";
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private static ParsingStage instance;
+
+    @NonNull
+    public static ParsingStage getInstance() {
+        synchronized (ParsingStage.class) {
+            if (instance == null) {
+                instance = new ParsingStage(Math.max(1, Runtime.getRuntime().availableProcessors()));
+            }
+            return instance;
+        }
+    }
+
+    /* Sets count of parsing threads. Tasks that are already queued are executed by old threads */
+    public static void setThreadsCount(final int threadsCount) {
+        synchronized (ParsingStage.class) {
+            instance = new ParsingStage(threadsCount);
+        }
+    }
+
+    @NonNull
+    private final Scheduler scheduler;
+    private final StageStatsRecorder statsRecorder = new StageStatsRecorder(STAGE_NAME);
+
+    private ParsingStage(final int threadsCount) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threadsCount, threadsCount,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        scheduler = Schedulers.from(executor);
+    }
+
+    /**
+     * Returns observable that executes task on one of parsing threads.
+     *
+     * @param task Task to execute;
+     * @param <T>  Type of result;
+     * @return Observable of result of task.
+     */
+    @NonNull
+    public <T> Observable<T> execute(@NonNull final Callable<T> task) {
+        return Observable.defer(() -> {
+            final StageStatsRecorder.Ticket ticket = statsRecorder.onEnqueued();
+            return Observable.<T>create(subscriber -> {
+                ticket.onStarted();
+                try {
+                    subscriber.onNext(task.call());
+                    subscriber.onCompleted();
+                } catch (Exception e) {
+                    subscriber.onError(e);
+                }
+            })
+                    .subscribeOn(scheduler)
+                    .doOnTerminate(ticket::onFinished)
+                    .doOnUnsubscribe(ticket::onFinished);
+        });
+    }
+
+    @NonNull
+    public PipelineStageStats getStats() {
+        return statsRecorder.getStats();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Snapshot of statistics of stage of requests pipeline: network stage ({@link RequestScheduler}) or parsing stage ({@link ParsingStage}).
+ */
+public class PipelineStageStats {
+
+    @NonNull
+    private final String name;
+    private final int waitingCount;
+    private final int runningCount;
+    private final long completedCount;
+    private final long totalWaitingMillis;
+    private final long totalExecutionMillis;
+
+    public PipelineStageStats(@NonNull final String name, final int waitingCount, final int runningCount, final long completedCount,
+                              final long totalWaitingMillis, final long totalExecutionMillis) {
+        this.name = name;
+        this.waitingCount = waitingCount;
+        this.runningCount = runningCount;
+        this.completedCount = completedCount;
+        this.totalWaitingMillis = totalWaitingMillis;
+        this.totalExecutionMillis = totalExecutionMillis;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /* Returns count of tasks waiting in queue of stage */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    /* Returns average time that completed tasks spent in queue */
+    public long getAverageWaitingMillis() {
+        return completedCount > 0 ? totalWaitingMillis / completedCount : 0;
+    }
+
+    /* Returns average time of execution of completed tasks */
+    public long getAverageExecutionMillis() {
+        return completedCount > 0 ? totalExecutionMillis / completedCount : 0;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return name + ": waiting " + waitingCount + ", running " + runningCount + ", completed " + completedCount
+                + ", avg waiting " + getAverageWaitingMillis() + "ms, avg execution " + getAverageExecutionMillis() + "ms";
+    }
+
+}
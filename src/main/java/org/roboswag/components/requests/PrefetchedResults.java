@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.functions.Func0;
+
+/**
+ * Store of results of prefetched requests (see {@link AbstractGetJsonRequest#prefetch(android.content.Context)}).
+ * Result is taken by first request with same {@link AbstractHttpRequest#getCacheKey()} and type of response
+ * and is dropped after time to live. Stored result is parsed response that is not passed through
+ * {@link AbstractHttpRequest#handleResponse(Object)} yet, request that takes it handles it by itself.
+ * Request that is executed while prefetch is still executing attaches to it and raises its priority.
+ */
+public final class PrefetchedResults {
+
+    private static final int DEFAULT_MAX_ENTRIES = 32;
+    private static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String KEY_SEPARATOR = "#";
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, InFlightPrefetch> IN_FLIGHT = new HashMap<>();
+    private static LruCache<String, Entry> entries = new LruCache<>(DEFAULT_MAX_ENTRIES);
+    private static long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+    /**
+     * Sets parameters of store. Stored results are dropped.
+     *
+     * @param maxEntries Max count of stored results;
+     * @param timeToLive Time after which stored result is dropped;
+     * @param timeUnit   Unit of time to live.
+     */
+    public static void setParameters(final int maxEntries, final long timeToLive, @NonNull final TimeUnit timeUnit) {
+        synchronized (LOCK) {
+            entries = new LruCache<>(maxEntries);
+            timeToLiveMillis = timeUnit.toMillis(timeToLive);
+        }
+    }
+
+    public static <T> void put(@NonNull final String key, @NonNull final Class<T> type, @NonNull final T value) {
+        synchronized (LOCK) {
+            entries.put(key, new Entry(value, type, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Removes result from store and returns it.
+     *
+     * @param key  Cache key of request;
+     * @param type Type of result. Result that was stored with other type is not returned;
+     * @param <T>  Type of result;
+     * @return Result or null if there is no result of such type or it is too old.
+     */
+    @Nullable
+    public static <T> T take(@NonNull final String key, @NonNull final Class<T> type) {
+        synchronized (LOCK) {
+            final Entry entry = entries.get(key);
+            if (entry == null || entry.type != type) {
+                return null;
+            }
+            entries.remove(key);
+            return System.currentTimeMillis() - entry.timeMillis <= timeToLiveMillis ? type.cast(entry.value) : null;
+        }
+    }
+
+    public static boolean contains(@NonNull final String key, @NonNull final Class<?> type) {
+        synchronized (LOCK) {
+            final Entry entry = entries.get(key);
+            return entry != null && entry.type == type && System.currentTimeMillis() - entry.timeMillis <= timeToLiveMillis;
+        }
+    }
+
+    /* Returns observable of prefetch that is executing right now or creates new one. Observable is shared while prefetch is executing */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    static <T> Observable<T> sharePrefetch(@NonNull final String key, @NonNull final Class<T> type,
+                                           @NonNull final ExecutionPriority executionPriority,
+                                           @NonNull final Func0<Observable<T>> observableCreator) {
+        final String inFlightKey = type.getName() + KEY_SEPARATOR + key;
+        synchronized (LOCK) {
+            final InFlightPrefetch inFlight = IN_FLIGHT.get(inFlightKey);
+            if (inFlight != null) {
+                return (Observable<T>) inFlight.observable;
+            }
+            final InFlightPrefetch[] holder = new InFlightPrefetch[1];
+            holder[0] = new InFlightPrefetch(executionPriority, observableCreator.call()
+                    .doOnTerminate(() -> removeInFlight(inFlightKey, holder[0]))
+                    .doOnUnsubscribe(() -> removeInFlight(inFlightKey, holder[0]))
+                    .replay(1)
+                    .refCount());
+            IN_FLIGHT.put(inFlightKey, holder[0]);
+            return (Observable<T>) holder[0].observable;
+        }
+    }
+
+    /* Returns observable of prefetch of same type that is executing right now and raises its priority to priority of attached request */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    static <T> Observable<T> attach(@NonNull final String key, @NonNull final Class<T> type, @NonNull final RequestPriority priority) {
+        final InFlightPrefetch inFlight;
+        synchronized (LOCK) {
+            inFlight = IN_FLIGHT.get(type.getName() + KEY_SEPARATOR + key);
+        }
+        if (inFlight == null) {
+            return null;
+        }
+        inFlight.executionPriority.promote(priority);
+        return (Observable<T>) inFlight.observable;
+    }
+
+    public static void clear() {
+        synchronized (LOCK) {
+            entries.evictAll();
+        }
+    }
+
+    private static void removeInFlight(@NonNull final String key, @NonNull final InFlightPrefetch inFlight) {
+        synchronized (LOCK) {
+            if (IN_FLIGHT.get(key) == inFlight) {
+                IN_FLIGHT.remove(key);
+            }
+        }
+    }
+
+    private PrefetchedResults() {
+    }
+
+    private static class Entry {
+
+        @NonNull
+        private final Object value;
+        @NonNull
+        private final Class<?> type;
+        private final long timeMillis;
+
+        public Entry(@NonNull final Object value, @NonNull final Class<?> type, final long timeMillis) {
+            this.value = value;
+            this.type = type;
+            this.timeMillis = timeMillis;
+        }
+
+    }
+
+    private static class InFlightPrefetch {
+
+        @NonNull
+        private final ExecutionPriority executionPriority;
+        @NonNull
+        private final Observable<?> observable;
+
+        public InFlightPrefetch(@NonNull final ExecutionPriority executionPriority, @NonNull final Observable<?> observable) {
+            this.executionPriority = executionPriority;
+            this.observable = observable;
+        }
+
+    }
+
+}
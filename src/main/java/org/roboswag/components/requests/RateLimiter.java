@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiter of rate of requests. Requests that should wait for token longer than max wait time are shed.
+ * Limiter could also be blocked until some time by server's Retry-After header.
+ */
+public class RateLimiter {
+
+    private final double permitsPerMillis;
+    private final double burstSize;
+    private final long maxWaitMillis;
+    private double availablePermits;
+    private long lastRefillTimeMillis;
+    private long blockedUntilMillis;
+
+    /**
+     * @param permitsPerSecond Rate of requests;
+     * @param burstSize        Max count of requests that could be executed at once after idle period;
+     * @param maxWait          Max time that request could wait for token. If it is 0 then requests are shed immediately;
+     * @param timeUnit         Unit of max wait time.
+     */
+    public RateLimiter(final double permitsPerSecond, final int burstSize, final long maxWait, @NonNull final TimeUnit timeUnit) {
+        this.permitsPerMillis = permitsPerSecond / TimeUnit.SECONDS.toMillis(1);
+        this.burstSize = burstSize;
+        this.maxWaitMillis = timeUnit.toMillis(maxWait);
+        this.availablePermits = burstSize;
+        this.lastRefillTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Reserves token for request.
+     *
+     * @return Time that request should wait before execution or -1 if request should be shed. Token is not reserved if request is shed.
+     */
+    public long reserve() {
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            availablePermits = Math.min(burstSize, availablePermits + (now - lastRefillTimeMillis) * permitsPerMillis);
+            lastRefillTimeMillis = now;
+            final long permitWaitMillis = availablePermits >= 1 ? 0 : (long) Math.ceil((1 - availablePermits) / permitsPerMillis);
+            final long waitMillis = Math.max(permitWaitMillis, blockedUntilMillis - now);
+            if (waitMillis > maxWaitMillis) {
+                return -1;
+            }
+            availablePermits -= 1;
+            return waitMillis;
+        }
+    }
+
+    /* Blocks all requests until time. Called on responses with Retry-After header */
+    public void blockUntil(final long timeMillis) {
+        synchronized (this) {
+            blockedUntilMillis = Math.max(blockedUntilMillis, timeMillis);
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.squareup.okhttp.Response;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of {@link RateLimiter}s of requests by request class or by URL pattern.
+ * Responses with code 429 or 503 and Retry-After header block limiter of request
+ * or, if there is no limiter for request, requests to same endpoint until time from header.
+ */
+public final class RateLimits {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final int HTTP_TOO_MANY_REQUESTS_CODE = 429;
+    private static final int HTTP_SERVICE_UNAVAILABLE_CODE = 503;
+    private static final long DEFAULT_MAX_RETRY_AFTER_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final Map<Class<?>, RateLimiter> CLASS_LIMITERS = new ConcurrentHashMap<>();
+    private static final List<PatternLimiter> PATTERN_LIMITERS = new CopyOnWriteArrayList<>();
+    private static final Map<String, Long> ENDPOINTS_BLOCKED_UNTIL = new ConcurrentHashMap<>();
+
+    /* Sets limiter for requests of class and its subclasses. Limiter of class has priority over limiters of URL patterns */
+    public static void setLimiter(@NonNull final Class<? extends AbstractHttpRequest> requestClass, @NonNull final RateLimiter limiter) {
+        CLASS_LIMITERS.put(requestClass, limiter);
+    }
+
+    /* Sets limiter for requests which full URL matches pattern. Patterns are checked in order of adding */
+    public static void setLimiter(@NonNull final Pattern urlPattern, @NonNull final RateLimiter limiter) {
+        PATTERN_LIMITERS.add(new PatternLimiter(urlPattern, limiter));
+    }
+
+    public static void clear() {
+        CLASS_LIMITERS.clear();
+        PATTERN_LIMITERS.clear();
+        ENDPOINTS_BLOCKED_UNTIL.clear();
+    }
+
+    /**
+     * Reserves execution of request.
+     *
+     * @param request Request to execute;
+     * @return Time that request should wait before execution.
+     * @throws IOException {@link RateLimitedException} if request is shed or exception during creation of request.
+     */
+    static long reserve(@NonNull final AbstractHttpRequest<?> request) throws IOException {
+        final RateLimiter limiter = getLimiter(request);
+        if (limiter != null) {
+            final long result = limiter.reserve();
+            if (result < 0) {
+                throw new RateLimitedException(request.getMetricsEndpoint());
+            }
+            return result;
+        }
+        final Long blockedUntil = ENDPOINTS_BLOCKED_UNTIL.get(request.getMetricsEndpoint());
+        if (blockedUntil == null) {
+            return 0;
+        }
+        final long result = blockedUntil - System.currentTimeMillis();
+        if (result <= 0) {
+            ENDPOINTS_BLOCKED_UNTIL.remove(request.getMetricsEndpoint(), blockedUntil);
+            return 0;
+        }
+        if (result > DEFAULT_MAX_RETRY_AFTER_WAIT_MILLIS) {
+            throw new RateLimitedException(request.getMetricsEndpoint());
+        }
+        return result;
+    }
+
+    /* Blocks requests like this one if response asks to retry after some time */
+    static void onResponse(@NonNull final AbstractHttpRequest<?> request, @NonNull final Response response) throws IOException {
+        if (response.code() != HTTP_TOO_MANY_REQUESTS_CODE && response.code() != HTTP_SERVICE_UNAVAILABLE_CODE) {
+            return;
+        }
+        final long retryAfterTimeMillis = getRetryAfterTimeMillis(response);
+        if (retryAfterTimeMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        final RateLimiter limiter = getLimiter(request);
+        if (limiter != null) {
+            limiter.blockUntil(retryAfterTimeMillis);
+        } else {
+            final Long blockedUntil = ENDPOINTS_BLOCKED_UNTIL.get(request.getMetricsEndpoint());
+            ENDPOINTS_BLOCKED_UNTIL.put(request.getMetricsEndpoint(),
+                    blockedUntil != null ? Math.max(blockedUntil, retryAfterTimeMillis) : retryAfterTimeMillis);
+        }
+    }
+
+    /* Returns time from Retry-After header which could be delay in seconds or HTTP date. Returns -1 if there is no valid header */
+    private static long getRetryAfterTimeMillis(@NonNull final Response response) {
+        final String retryAfter = response.header(RETRY_AFTER_HEADER);
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (final NumberFormatException exception) {
+            final Date date = response.headers().getDate(RETRY_AFTER_HEADER);
+            return date != null ? date.getTime() : -1;
+        }
+    }
+
+    @Nullable
+    private static RateLimiter getLimiter(@NonNull final AbstractHttpRequest<?> request) throws IOException {
+        if (!CLASS_LIMITERS.isEmpty()) {
+            Class<?> requestClass = request.getClass();
+            while (requestClass != null) {
+                final RateLimiter limiter = CLASS_LIMITERS.get(requestClass);
+                if (limiter != null) {
+                    return limiter;
+                }
+                requestClass = requestClass.getSuperclass();
+            }
+        }
+        if (!PATTERN_LIMITERS.isEmpty()) {
+            final String url = request.getRequest().urlString();
+            for (final PatternLimiter patternLimiter : PATTERN_LIMITERS) {
+                if (patternLimiter.pattern.matcher(url).matches()) {
+                    return patternLimiter.limiter;
+                }
+            }
+        }
+        return null;
+    }
+
+    private RateLimits() {
+    }
+
+    public static class RateLimitedException extends IOException {
+
+        public RateLimitedException(@NonNull final String endpoint) {
+            super("Request is shed by rate limiter of " + endpoint);
+        }
+
+    }
+
+    private static class PatternLimiter {
+
+        @NonNull
+        private final Pattern pattern;
+        @NonNull
+        private final RateLimiter limiter;
+
+        public PatternLimiter(@NonNull final Pattern pattern, @NonNull final RateLimiter limiter) {
+            this.pattern = pattern;
+            this.limiter = limiter;
+        }
+
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings and byte counts of one execution of request.
+ * Connect phase includes waiting for connection, DNS resolution, TCP and TLS handshakes and is almost zero if connection was reused.
+ * Download is time spent waiting for response bytes, parse is rest of time of response body processing after parsing started.
+ * Unknown values are -1.
+ */
+public class RequestMetrics {
+
+    @NonNull
+    private final String endpoint;
+    @NonNull
+    private final String method;
+    private final long startNanos;
+    private long callStartNanos;
+    private long networkStartNanos;
+    private long headersNanos;
+    private long parseStartNanos;
+    private long parseStartReadNanos;
+    private long bodyEndNanos;
+    private long endNanos;
+    private long downloadNanos;
+    private long requestBytes = -1;
+    private long responseBytes = -1;
+    private int responseCode = -1;
+    private boolean isCacheHit;
+    private boolean isConnectionReused;
+    private boolean isSucceeded;
+
+    public RequestMetrics(@NonNull final String endpoint, @NonNull final String method) {
+        this.endpoint = endpoint;
+        this.method = method;
+        startNanos = System.nanoTime();
+    }
+
+    /* Called right before call is sent to OkHttp */
+    void onCallStarted() {
+        callStartNanos = System.nanoTime();
+    }
+
+    /* Called by network interceptor when connection to host is acquired */
+    synchronized void onNetworkStarted(final boolean isConnectionReused, final long requestBytes) {
+        if (networkStartNanos == 0) {
+            networkStartNanos = System.nanoTime();
+            this.isConnectionReused = isConnectionReused;
+        }
+        this.requestBytes = requestBytes;
+    }
+
+    void onHeadersReceived(final int responseCode) {
+        headersNanos = System.nanoTime();
+        this.responseCode = responseCode;
+    }
+
+    /* Called before parsing of body. Body could be already downloaded if parsing is staged */
+    void onParsingStarted(@NonNull final MeteredInputStream inputStream) {
+        parseStartNanos = System.nanoTime();
+        parseStartReadNanos = inputStream.getReadNanos();
+    }
+
+    void onBodyProcessed(@NonNull final MeteredInputStream inputStream) {
+        bodyEndNanos = System.nanoTime();
+        downloadNanos = inputStream.getReadNanos();
+        responseBytes = inputStream.getBytesCount();
+    }
+
+    void onCacheHit() {
+        isCacheHit = true;
+    }
+
+    void onFinished(final boolean isSucceeded) {
+        endNanos = System.nanoTime();
+        this.isSucceeded = isSucceeded;
+    }
+
+    /* Returns host and path of request that is used to aggregate metrics */
+    @NonNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @NonNull
+    public String getMethod() {
+        return method;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    public boolean isCacheHit() {
+        return isCacheHit;
+    }
+
+    public boolean isConnectionReused() {
+        return isConnectionReused;
+    }
+
+    public boolean isSucceeded() {
+        return isSucceeded;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /* Returns count of response bytes after transparent decompression */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getTotalMillis() {
+        return toMillis(startNanos, endNanos);
+    }
+
+    public long getConnectMillis() {
+        return toMillis(startNanos, networkStartNanos);
+    }
+
+    public long getFirstByteMillis() {
+        return toMillis(networkStartNanos != 0 ? networkStartNanos : startNanos, headersNanos);
+    }
+
+    /* Returns time from sending of call to receiving of headers including connection. Hedge delay is counted same way */
+    public long getCallToHeadersMillis() {
+        return toMillis(callStartNanos, headersNanos);
+    }
+
+    public long getDownloadMillis() {
+        return bodyEndNanos != 0 ? TimeUnit.NANOSECONDS.toMillis(downloadNanos) : -1;
+    }
+
+    public long getParseMillis() {
+        if (bodyEndNanos == 0) {
+            return -1;
+        }
+        // download time before parsing (buffering of staged response) is not part of parsing
+        final long parseDownloadNanos = downloadNanos - parseStartReadNanos;
+        return TimeUnit.NANOSECONDS.toMillis(bodyEndNanos - (parseStartNanos != 0 ? parseStartNanos : headersNanos) - parseDownloadNanos);
+    }
+
+    private long toMillis(final long fromNanos, final long toNanos) {
+        return fromNanos != 0 && toNanos != 0 ? TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos) : -1;
+    }
+
+    @Override
+    public String toString() {
+        return method + ' ' + endpoint + ": code=" + responseCode + ", total=" + getTotalMillis()
+                + "ms, connect=" + getConnectMillis() + "ms, firstByte=" + getFirstByteMillis()
+                + "ms, download=" + getDownloadMillis() + "ms, parse=" + getParseMillis()
+                + "ms, sent=" + requestBytes + ", received=" + responseBytes
+                + (isCacheHit ? ", cache hit" : "") + (isConnectionReused ? ", reused connection" : "");
+    }
+
+}
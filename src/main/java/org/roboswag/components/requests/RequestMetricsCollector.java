@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import rx.Observable;
+import rx.subjects.PublishSubject;
+import rx.subjects.Subject;
+
+/**
+ * Collector of {@link RequestMetrics} of all requests.
+ * Only sampled part of requests is published and recorded to per-endpoint histograms of total latency and of time to first byte.
+ */
+public final class RequestMetricsCollector {
+
+    private static final Subject<RequestMetrics, RequestMetrics> METRICS_SUBJECT = PublishSubject.<RequestMetrics>create().toSerialized();
+    private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> FIRST_BYTE_HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Random RANDOM = new Random();
+
+    private static volatile float samplingRate = 1;
+
+    /* Sets part of requests from 0 to 1 that metrics should be collected */
+    public static void setSamplingRate(final float samplingRate) {
+        RequestMetricsCollector.samplingRate = samplingRate;
+    }
+
+    /* Returns observable of metrics of sampled requests. Metrics are emitted on threads of requests */
+    @NonNull
+    public static Observable<RequestMetrics> observeMetrics() {
+        return METRICS_SUBJECT;
+    }
+
+    /* Returns histogram of latencies of successful network requests to endpoint */
+    @Nullable
+    public static LatencyHistogram getHistogram(@NonNull final String endpoint) {
+        return HISTOGRAMS.get(endpoint);
+    }
+
+    @NonNull
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return new HashMap<>(HISTOGRAMS);
+    }
+
+    /* Returns histogram of times from sending of call to receiving of headers of successful requests to endpoint.
+     * Connection time is included so hedged and not hedged requests are measured same way */
+    @Nullable
+    public static LatencyHistogram getFirstByteHistogram(@NonNull final String endpoint) {
+        return FIRST_BYTE_HISTOGRAMS.get(endpoint);
+    }
+
+    static void finish(@NonNull final RequestMetrics metrics, final boolean isSucceeded) {
+        metrics.onFinished(isSucceeded);
+        final float currentSamplingRate = samplingRate;
+        if (currentSamplingRate <= 0 || (currentSamplingRate < 1 && RANDOM.nextFloat() >= currentSamplingRate)) {
+            return;
+        }
+        if (isSucceeded && !metrics.isCacheHit()) {
+            getOrCreateHistogram(HISTOGRAMS, metrics.getEndpoint()).record(metrics.getTotalMillis());
+            final long callToHeadersMillis = metrics.getCallToHeadersMillis();
+            if (callToHeadersMillis >= 0) {
+                getOrCreateHistogram(FIRST_BYTE_HISTOGRAMS, metrics.getEndpoint()).record(callToHeadersMillis);
+            }
+        }
+        if (METRICS_SUBJECT.hasObservers()) {
+            METRICS_SUBJECT.onNext(metrics);
+        }
+    }
+
+    @NonNull
+    private static LatencyHistogram getOrCreateHistogram(@NonNull final ConcurrentHashMap<String, LatencyHistogram> histograms,
+                                                         @NonNull final String endpoint) {
+        final LatencyHistogram histogram = histograms.get(endpoint);
+        if (histogram != null) {
+            return histogram;
+        }
+        final LatencyHistogram newHistogram = new LatencyHistogram();
+        final LatencyHistogram existing = histograms.putIfAbsent(endpoint, newHistogram);
+        return existing != null ? existing : newHistogram;
+    }
+
+    private RequestMetricsCollector() {
+    }
+
+}
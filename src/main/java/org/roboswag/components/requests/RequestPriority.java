@@ -0,0 +1,34 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+/**
+ * Priority class of request in {@link RequestScheduler}. Requests with higher priority are started first.
+ */
+public enum RequestPriority {
+    /* Request that user is waiting for right now */
+    USER_BLOCKING,
+    /* Request of data that is visible on screen */
+    VISIBLE,
+    /* Request of data that will be probably needed soon */
+    PREFETCH,
+    /* Request that is not related to UI */
+    BACKGROUND
+}
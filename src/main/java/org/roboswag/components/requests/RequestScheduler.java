@@ -0,0 +1,272 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+/**
+ * Scheduler of network requests with global and per-host concurrency limits.
+ * Waiting requests are started in order of their {@link RequestPriority} and are dropped from queue on unsubscription.
+ */
+public final class RequestScheduler {
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 6;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST = 4;
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+    private static final String STAGE_NAME = "network";
+
+    private static RequestScheduler instance;
+
+    @NonNull
+    public static RequestScheduler getInstance() {
+        synchronized (RequestScheduler.class) {
+            if (instance == null) {
+                instance = new RequestScheduler(DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST);
+            }
+            return instance;
+        }
+    }
+
+    /**
+     * Sets limits of concurrent requests. Requests that are already scheduled are executed with old limits.
+     *
+     * @param maxConcurrentRequests        Max count of requests executing at same time;
+     * @param maxConcurrentRequestsPerHost Max count of requests to one host executing at same time.
+     */
+    public static void setLimits(final int maxConcurrentRequests, final int maxConcurrentRequestsPerHost) {
+        synchronized (RequestScheduler.class) {
+            instance = new RequestScheduler(maxConcurrentRequests, maxConcurrentRequestsPerHost);
+        }
+    }
+
+    private final int maxConcurrentRequests;
+    private final int maxConcurrentRequestsPerHost;
+    @NonNull
+    private final Scheduler scheduler;
+    private final TreeSet<Task> waitingTasks = new TreeSet<>((lhs, rhs) -> {
+        final int priorityCompare = lhs.priority.compareTo(rhs.priority);
+        return priorityCompare != 0 ? priorityCompare : (lhs.order < rhs.order ? -1 : (lhs.order == rhs.order ? 0 : 1));
+    });
+    private final Map<String, Integer> runningPerHost = new HashMap<>();
+    private final StageStatsRecorder statsRecorder = new StageStatsRecorder(STAGE_NAME);
+    private int runningCount;
+    private long tasksCounter;
+
+    private RequestScheduler(final int maxConcurrentRequests, final int maxConcurrentRequestsPerHost) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+                THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        scheduler = Schedulers.from(executor);
+    }
+
+    /**
+     * Returns observable that waits for free slot and then subscribes to source on one of request threads.
+     *
+     * @param source   Observable of blocking request;
+     * @param priority Priority of request;
+     * @param host     Host of request;
+     * @param <T>      Type of result;
+     * @return Scheduled observable.
+     */
+    @NonNull
+    public <T> Observable<T> schedule(@NonNull final Observable<T> source, @NonNull final RequestPriority priority, @NonNull final String host) {
+        return schedule(source, new ExecutionPriority(priority), host);
+    }
+
+    /* Schedules source with priority that could be raised by ExecutionPriority.promote() while task is waiting */
+    @NonNull
+    <T> Observable<T> schedule(@NonNull final Observable<T> source, @NonNull final ExecutionPriority priority, @NonNull final String host) {
+        return Observable.<T>create(subscriber -> {
+            final Task task;
+            synchronized (waitingTasks) {
+                task = new Task(priority, host, tasksCounter++, statsRecorder.onEnqueued(), new SubscribeAction<>(source, subscriber));
+                waitingTasks.add(task);
+            }
+            subscriber.add(Subscriptions.create(() -> {
+                synchronized (waitingTasks) {
+                    if (waitingTasks.remove(task)) {
+                        task.ticket.onFinished();
+                    }
+                }
+            }));
+            dispatch();
+        });
+    }
+
+    /* Moves waiting tasks of execution to position of its current priority */
+    void promote(@NonNull final ExecutionPriority executionPriority) {
+        synchronized (waitingTasks) {
+            final List<Task> promotedTasks = new ArrayList<>();
+            final Iterator<Task> iterator = waitingTasks.iterator();
+            while (iterator.hasNext()) {
+                final Task task = iterator.next();
+                if (task.executionPriority == executionPriority && task.priority != executionPriority.get()) {
+                    iterator.remove();
+                    task.priority = executionPriority.get();
+                    promotedTasks.add(task);
+                }
+            }
+            waitingTasks.addAll(promotedTasks);
+        }
+    }
+
+    public int getWaitingCount() {
+        synchronized (waitingTasks) {
+            return waitingTasks.size();
+        }
+    }
+
+    public int getRunningCount() {
+        synchronized (waitingTasks) {
+            return runningCount;
+        }
+    }
+
+    /* Returns queue depth and timings of network stage of requests pipeline */
+    @NonNull
+    public PipelineStageStats getStats() {
+        return statsRecorder.getStats();
+    }
+
+    private void dispatch() {
+        final List<Task> tasksToStart = new ArrayList<>();
+        synchronized (waitingTasks) {
+            final Iterator<Task> iterator = waitingTasks.iterator();
+            while (runningCount < maxConcurrentRequests && iterator.hasNext()) {
+                final Task task = iterator.next();
+                final Integer hostRunningCount = runningPerHost.get(task.host);
+                if (hostRunningCount != null && hostRunningCount >= maxConcurrentRequestsPerHost) {
+                    continue;
+                }
+                iterator.remove();
+                runningPerHost.put(task.host, hostRunningCount != null ? hostRunningCount + 1 : 1);
+                runningCount++;
+                tasksToStart.add(task);
+            }
+        }
+        for (final Task task : tasksToStart) {
+            task.ticket.onStarted();
+            task.subscribeAction.start(() -> onTaskFinished(task));
+        }
+    }
+
+    private void onTaskFinished(@NonNull final Task task) {
+        task.ticket.onFinished();
+        synchronized (waitingTasks) {
+            runningCount--;
+            final Integer hostRunningCount = runningPerHost.get(task.host);
+            if (hostRunningCount == null || hostRunningCount <= 1) {
+                runningPerHost.remove(task.host);
+            } else {
+                runningPerHost.put(task.host, hostRunningCount - 1);
+            }
+        }
+        dispatch();
+    }
+
+    private static class Task {
+
+        @NonNull
+        private final ExecutionPriority executionPriority;
+        @NonNull
+        private RequestPriority priority;
+        @NonNull
+        private final String host;
+        private final long order;
+        @NonNull
+        private final StageStatsRecorder.Ticket ticket;
+        @NonNull
+        private final SubscribeAction<?> subscribeAction;
+
+        public Task(@NonNull final ExecutionPriority executionPriority, @NonNull final String host, final long order,
+                    @NonNull final StageStatsRecorder.Ticket ticket, @NonNull final SubscribeAction<?> subscribeAction) {
+            this.executionPriority = executionPriority;
+            this.priority = executionPriority.get();
+            this.host = host;
+            this.order = order;
+            this.ticket = ticket;
+            this.subscribeAction = subscribeAction;
+        }
+
+    }
+
+    /* Subscribes to blocking source on request thread. Slot is released when subscription on request thread returns,
+     * or on unsubscription if source was not started yet, so cancelled calls that are still blocking keep their slots */
+    private class SubscribeAction<T> {
+
+        private static final int STATE_WAITING = 0;
+        private static final int STATE_RUNNING = 1;
+        private static final int STATE_FINISHED = 2;
+
+        @NonNull
+        private final Observable<T> source;
+        @NonNull
+        private final Subscriber<? super T> subscriber;
+
+        public SubscribeAction(@NonNull final Observable<T> source, @NonNull final Subscriber<? super T> subscriber) {
+            this.source = source;
+            this.subscriber = subscriber;
+        }
+
+        public void start(@NonNull final Runnable onFinished) {
+            final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+            subscriber.add(Subscriptions.create(() -> {
+                if (state.compareAndSet(STATE_WAITING, STATE_FINISHED)) {
+                    onFinished.run();
+                }
+            }));
+            final Scheduler.Worker worker = scheduler.createWorker();
+            worker.schedule(() -> {
+                if (!state.compareAndSet(STATE_WAITING, STATE_RUNNING)) {
+                    worker.unsubscribe();
+                    return;
+                }
+                try {
+                    source.unsafeSubscribe(subscriber);
+                } finally {
+                    state.set(STATE_FINISHED);
+                    worker.unsubscribe();
+                    onFinished.run();
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,453 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import com.google.api.client.util.Charsets;
+import com.squareup.okhttp.MediaType;
+
+import org.roboswag.core.log.Lc;
+import org.roboswag.core.utils.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of responses keyed by {@link AbstractHttpRequest#getCacheKey()}.
+ * First tier is in-memory LRU cache of parsed objects, second tier is disk cache of raw response bytes.
+ * Disk tier works only after {@link #initialize(File, int, long)} call.
+ * Files of disk tier are named by MD5 of key and store full key in header to detect collisions.
+ * Parsed objects are shared between requests with same cache key so they should not be modified.
+ */
+public final class ResponseCache {
+
+    private static final int DEFAULT_MAX_MEMORY_ENTRIES = 64;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final Object LOCK = new Object();
+    private static final AtomicLong TEMP_FILES_COUNTER = new AtomicLong();
+    @NonNull
+    private static LruCache<String, Entry<Object>> memoryCache = new LruCache<>(DEFAULT_MAX_MEMORY_ENTRIES);
+    @Nullable
+    private static File directory;
+    private static long maxDiskSize;
+
+    /**
+     * Initializes cache.
+     *
+     * @param directory        Directory to store raw responses in. Usually it is subdirectory of {@link android.content.Context#getCacheDir()};
+     * @param maxMemoryEntries Max count of parsed objects in memory;
+     * @param maxDiskSize      Max size of disk cache in bytes.
+     */
+    public static void initialize(@NonNull final File directory, final int maxMemoryEntries, final long maxDiskSize) {
+        synchronized (LOCK) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                Lc.d("Can't create cache directory %s", directory);
+            }
+            ResponseCache.directory = directory;
+            ResponseCache.maxDiskSize = maxDiskSize;
+            memoryCache = new LruCache<>(maxMemoryEntries);
+            deleteTempFiles(directory);
+        }
+    }
+
+    @Nullable
+    public static Entry<Object> getFromMemory(@NonNull final String key) {
+        synchronized (LOCK) {
+            return memoryCache.get(key);
+        }
+    }
+
+    public static void putToMemory(@NonNull final String key, @NonNull final Object value, final long cachedTimeMillis) {
+        synchronized (LOCK) {
+            memoryCache.put(key, new Entry<>(value, cachedTimeMillis));
+        }
+    }
+
+    /**
+     * Opens raw response stored on disk.
+     *
+     * @param key Cache key;
+     * @return Stored response or null if there is no such response.
+     * @throws IOException Exception during reading of response header.
+     */
+    @Nullable
+    public static DiskEntry openFromDisk(@NonNull final String key) throws IOException {
+        final File file = getFile(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        final DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            final byte[] storedKey = new byte[inputStream.readInt()];
+            inputStream.readFully(storedKey);
+            if (!key.equals(new String(storedKey, Charsets.UTF_8))) {
+                // file belongs to other key with same hash
+                inputStream.close();
+                return null;
+            }
+            final long cachedTimeMillis = inputStream.readLong();
+            final Charset charset = Charset.forName(inputStream.readUTF());
+            final String contentType = inputStream.readUTF();
+            return new DiskEntry(inputStream, charset, contentType.isEmpty() ? null : MediaType.parse(contentType), cachedTimeMillis);
+        } catch (final IOException | RuntimeException exception) {
+            inputStream.close();
+            remove(key);
+            throw exception;
+        }
+    }
+
+    /**
+     * Wraps stream of response so all data read from it is written to disk cache.
+     *
+     * @param key         Cache key;
+     * @param charset     Charset of response;
+     * @param contentType Content type of response or null;
+     * @param inputStream Stream of response;
+     * @return Writer or null if disk cache is not initialized.
+     */
+    @Nullable
+    public static DiskWriter startWriting(@NonNull final String key, @NonNull final Charset charset, @Nullable final MediaType contentType,
+                                          @NonNull final InputStream inputStream) {
+        final File file = getFile(key);
+        if (file == null) {
+            return null;
+        }
+        // each writer has its own temp file as same response could be written by concurrent requests
+        final File tempFile = new File(file.getPath() + '.' + TEMP_FILES_COUNTER.incrementAndGet() + TEMP_FILE_SUFFIX);
+        try {
+            final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            final byte[] keyBytes = key.getBytes(Charsets.UTF_8);
+            outputStream.writeInt(keyBytes.length);
+            outputStream.write(keyBytes);
+            outputStream.writeLong(System.currentTimeMillis());
+            outputStream.writeUTF(charset.name());
+            outputStream.writeUTF(contentType != null ? contentType.toString() : "");
+            return new DiskWriter(inputStream, outputStream, tempFile, file);
+        } catch (final IOException exception) {
+            Lc.d("Can't start writing cache file %s: %s", tempFile, exception);
+            return null;
+        }
+    }
+
+    public static void remove(@NonNull final String key) {
+        synchronized (LOCK) {
+            memoryCache.remove(key);
+        }
+        final File file = getFile(key);
+        if (file != null && file.exists() && !file.delete()) {
+            Lc.d("Can't delete cache file %s", file);
+        }
+    }
+
+    public static void clear() {
+        synchronized (LOCK) {
+            memoryCache.evictAll();
+            if (directory != null) {
+                final File[] files = directory.listFiles();
+                if (files != null) {
+                    for (final File file : files) {
+                        if (!file.delete()) {
+                            Lc.d("Can't delete cache file %s", file);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static File getFile(@NonNull final String key) {
+        synchronized (LOCK) {
+            return directory != null ? new File(directory, StringUtils.md5(key)) : null;
+        }
+    }
+
+    private static void trimDiskCache() {
+        synchronized (LOCK) {
+            if (directory == null) {
+                return;
+            }
+            final File[] files = directory.listFiles();
+            if (files == null) {
+                return;
+            }
+            // temp files are still being written so they are not counted and not deleted
+            final List<File> cacheFiles = new ArrayList<>();
+            long size = 0;
+            for (final File file : files) {
+                if (!isTempFile(file)) {
+                    cacheFiles.add(file);
+                    size += file.length();
+                }
+            }
+            if (size <= maxDiskSize) {
+                return;
+            }
+            Collections.sort(cacheFiles, (lhs, rhs) -> {
+                final long lhsModified = lhs.lastModified();
+                final long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            });
+            for (final File file : cacheFiles) {
+                if (size <= maxDiskSize) {
+                    break;
+                }
+                final long length = file.length();
+                if (file.delete()) {
+                    size -= length;
+                }
+            }
+        }
+    }
+
+    private static boolean isTempFile(@NonNull final File file) {
+        return file.getName().endsWith(TEMP_FILE_SUFFIX);
+    }
+
+    /* Deletes temp files that were left by writers of previous process */
+    private static void deleteTempFiles(@NonNull final File directory) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (isTempFile(file) && !file.delete()) {
+                Lc.d("Can't delete cache temp file %s", file);
+            }
+        }
+    }
+
+    private ResponseCache() {
+    }
+
+    public static class Entry<T> {
+
+        @NonNull
+        private final T value;
+        private final long cachedTimeMillis;
+
+        public Entry(@NonNull final T value, final long cachedTimeMillis) {
+            this.value = value;
+            this.cachedTimeMillis = cachedTimeMillis;
+        }
+
+        @NonNull
+        public T getValue() {
+            return value;
+        }
+
+        public long getCachedTimeMillis() {
+            return cachedTimeMillis;
+        }
+
+    }
+
+    public static class DiskEntry {
+
+        @NonNull
+        private final InputStream inputStream;
+        @NonNull
+        private final Charset charset;
+        @Nullable
+        private final MediaType contentType;
+        private final long cachedTimeMillis;
+
+        public DiskEntry(@NonNull final InputStream inputStream, @NonNull final Charset charset, @Nullable final MediaType contentType,
+                         final long cachedTimeMillis) {
+            this.inputStream = inputStream;
+            this.charset = charset;
+            this.contentType = contentType;
+            this.cachedTimeMillis = cachedTimeMillis;
+        }
+
+        @NonNull
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        @NonNull
+        public Charset getCharset() {
+            return charset;
+        }
+
+        @Nullable
+        public MediaType getContentType() {
+            return contentType;
+        }
+
+        public long getCachedTimeMillis() {
+            return cachedTimeMillis;
+        }
+
+    }
+
+    /**
+     * Stream that writes all read data into temporary cache file.
+     * File becomes available in cache only after {@link #commit()}.
+     */
+    public static class DiskWriter extends FilterInputStream {
+
+        @NonNull
+        private final DataOutputStream outputStream;
+        @NonNull
+        private final File tempFile;
+        @NonNull
+        private final File file;
+        private boolean isFailed;
+        private boolean isClosed;
+        private boolean isFinished;
+
+        protected DiskWriter(@NonNull final InputStream inputStream, @NonNull final DataOutputStream outputStream,
+                             @NonNull final File tempFile, @NonNull final File file) {
+            super(inputStream);
+            this.outputStream = outputStream;
+            this.tempFile = tempFile;
+            this.file = file;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result != -1) {
+                write(new byte[]{(byte) result}, 0, 1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(@NonNull final byte[] buffer, final int offset, final int count) throws IOException {
+            final int result = super.read(buffer, offset, count);
+            if (result > 0) {
+                write(buffer, offset, result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(final long count) throws IOException {
+            if (count <= 0) {
+                return 0;
+            }
+            final byte[] buffer = new byte[(int) Math.min(count, 8192)];
+            long skipped = 0;
+            while (skipped < count) {
+                final int read = read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+                if (read <= 0) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void write(@NonNull final byte[] buffer, final int offset, final int count) {
+            if (isFailed) {
+                return;
+            }
+            try {
+                outputStream.write(buffer, offset, count);
+            } catch (final IOException exception) {
+                Lc.d("Can't write cache file %s: %s", tempFile, exception);
+                isFailed = true;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!isFinished && !isFailed && !isClosed) {
+                try {
+                    final byte[] buffer = new byte[8192];
+                    while (read(buffer, 0, buffer.length) != -1) {
+                        // reading tail of response that wasn't read by parser
+                    }
+                } catch (final IOException exception) {
+                    Lc.d("Can't read tail of response for cache file %s: %s", tempFile, exception);
+                    isFailed = true;
+                }
+            }
+            isClosed = true;
+            super.close();
+        }
+
+        /* Moves written data into cache file. Should be called after response is fully read and closed */
+        public void commit() {
+            if (isFinished) {
+                return;
+            }
+            if (!isClosed) {
+                isFailed = true;
+            }
+            finish();
+            if (isFailed || !tempFile.renameTo(file)) {
+                deleteTempFile();
+                return;
+            }
+            trimDiskCache();
+        }
+
+        /* Drops written data */
+        public void abort() {
+            if (isFinished) {
+                return;
+            }
+            finish();
+            deleteTempFile();
+        }
+
+        private void finish() {
+            isFinished = true;
+            try {
+                outputStream.close();
+            } catch (final IOException exception) {
+                isFailed = true;
+            }
+        }
+
+        private void deleteTempFile() {
+            if (tempFile.exists() && !tempFile.delete()) {
+                Lc.d("Can't delete temporary cache file %s", tempFile);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * Policy of retrying failed requests with exponential backoff and full jitter.
+ * Only {@link IOException}s are retried, requests to hosts with open {@link CircuitBreaker} fail immediately.
+ */
+public class RetryPolicy {
+
+    @NonNull
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, TimeUnit.SECONDS.toMillis(1), TimeUnit.SECONDS.toMillis(30), 2);
+
+    private static final Random RANDOM = new Random();
+
+    private final int maxRetries;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+
+    public RetryPolicy(final int maxRetries, final long initialDelayMillis, final long maxDelayMillis, final double multiplier) {
+        this.maxRetries = maxRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /* Returns true if request should be retried after exception at attempt which is starting from 1 */
+    public boolean shouldRetry(@NonNull final Throwable throwable, final int attempt) {
+        return attempt <= maxRetries
+                && throwable instanceof IOException
+                && !(throwable instanceof CircuitBreaker.OpenException)
+                && !(throwable instanceof RateLimits.RateLimitedException);
+    }
+
+    /* Returns random delay between 0 and exponentially growing limit before attempt which is starting from 1 */
+    public long getDelayMillis(final int attempt) {
+        final double limit = Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, attempt - 1));
+        synchronized (RANDOM) {
+            return (long) (RANDOM.nextDouble() * limit);
+        }
+    }
+
+    /* Returns function to use in Observable.retryWhen() */
+    @NonNull
+    public Func1<Observable<? extends Throwable>, Observable<?>> createRetryHandler() {
+        return errors -> {
+            final int[] attempt = new int[1];
+            return errors.flatMap(throwable -> {
+                attempt[0]++;
+                return shouldRetry(throwable, attempt[0])
+                        ? Observable.timer(getDelayMillis(attempt[0]), TimeUnit.MILLISECONDS)
+                        : Observable.error(throwable);
+            });
+        };
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * In-memory store of validators (ETag and Last-Modified) and parsed objects of last responses.
+ * Used to send conditional requests and to return previously parsed object if server responds with 304 Not Modified.
+ * Same object is returned to every request that gets 304 so it is shared and should be treated as immutable.
+ * Used only by requests that enable it by {@link AbstractHttpRequest#isRevalidationEnabled()}.
+ */
+public final class RevalidationStore {
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final String ETAG_HEADER = "ETag";
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    private static final Object LOCK = new Object();
+    @NonNull
+    private static LruCache<String, Entry> entries = new LruCache<>(DEFAULT_MAX_ENTRIES);
+
+    public static void setMaxEntries(final int maxEntries) {
+        synchronized (LOCK) {
+            entries = new LruCache<>(maxEntries);
+        }
+    }
+
+    @Nullable
+    public static Entry get(@NonNull final String key) {
+        synchronized (LOCK) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Stores validators of response and its parsed object. If response has no validators then stored entry is removed.
+     *
+     * @param key      Cache key of request;
+     * @param response Response with validators;
+     * @param value    Parsed object of response.
+     */
+    public static void put(@NonNull final String key, @NonNull final Response response, @NonNull final Object value) {
+        final String etag = response.header(ETAG_HEADER);
+        final String lastModified = response.header(LAST_MODIFIED_HEADER);
+        synchronized (LOCK) {
+            if (etag == null && lastModified == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, new Entry(etag, lastModified, value));
+            }
+        }
+    }
+
+    public static void clear() {
+        synchronized (LOCK) {
+            entries.evictAll();
+        }
+    }
+
+    private RevalidationStore() {
+    }
+
+    public static class Entry {
+
+        @Nullable
+        private final String etag;
+        @Nullable
+        private final String lastModified;
+        @NonNull
+        private final Object value;
+
+        public Entry(@Nullable final String etag, @Nullable final String lastModified, @NonNull final Object value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+
+        @NonNull
+        public Object getValue() {
+            return value;
+        }
+
+        /* Returns copy of request with If-None-Match and If-Modified-Since headers */
+        @NonNull
+        public Request addConditionalHeaders(@NonNull final Request request) {
+            final Request.Builder builder = request.newBuilder();
+            if (etag != null) {
+                builder.header(IF_NONE_MATCH_HEADER, etag);
+            }
+            if (lastModified != null) {
+                builder.header(IF_MODIFIED_SINCE_HEADER, lastModified);
+            }
+            return builder.build();
+        }
+
+    }
+
+}
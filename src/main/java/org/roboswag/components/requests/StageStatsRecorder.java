@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe recorder of queue depth and timings of pipeline stage.
+ */
+class StageStatsRecorder {
+
+    @NonNull
+    private final String name;
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong totalWaitingNanos = new AtomicLong();
+    private final AtomicLong totalExecutionNanos = new AtomicLong();
+
+    public StageStatsRecorder(@NonNull final String name) {
+        this.name = name;
+    }
+
+    /* Returns ticket of task that is added to queue. Each method of ticket affects stats only once */
+    @NonNull
+    public Ticket onEnqueued() {
+        waitingCount.incrementAndGet();
+        return new Ticket();
+    }
+
+    @NonNull
+    public PipelineStageStats getStats() {
+        return new PipelineStageStats(name, waitingCount.get(), runningCount.get(), completedCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitingNanos.get()), TimeUnit.NANOSECONDS.toMillis(totalExecutionNanos.get()));
+    }
+
+    public class Ticket {
+
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicBoolean isDequeued = new AtomicBoolean();
+        private final AtomicBoolean isFinished = new AtomicBoolean();
+        private volatile long startedNanos;
+
+        /* Task is started */
+        public void onStarted() {
+            if (isDequeued.compareAndSet(false, true)) {
+                startedNanos = System.nanoTime();
+                waitingCount.decrementAndGet();
+                runningCount.incrementAndGet();
+                totalWaitingNanos.addAndGet(startedNanos - enqueuedNanos);
+            }
+        }
+
+        /* Task is finished or dropped from queue before start */
+        public void onFinished() {
+            if (isDequeued.compareAndSet(false, true)) {
+                waitingCount.decrementAndGet();
+                isFinished.set(true);
+                return;
+            }
+            if (isFinished.compareAndSet(false, true)) {
+                runningCount.decrementAndGet();
+                completedCount.incrementAndGet();
+                totalExecutionNanos.addAndGet(System.nanoTime() - startedNanos);
+            }
+        }
+
+    }
+
+}
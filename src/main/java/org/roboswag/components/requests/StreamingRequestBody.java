@@ -0,0 +1,81 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.http.HttpContent;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.IOException;
+
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Request body that serializes content directly into connection without buffering it in memory.
+ * If body is chunked or gzipped then its length is unknown and it is sent with chunked transfer encoding,
+ * else length is calculated by additional serialization pass.
+ */
+public class StreamingRequestBody extends RequestBody {
+
+    @NonNull
+    private final HttpContent content;
+    @NonNull
+    private final MediaType mediaType;
+    private final boolean isChunked;
+    private final boolean isGzipped;
+
+    public StreamingRequestBody(@NonNull final HttpContent content, final boolean isChunked, final boolean isGzipped) {
+        this.content = content;
+        this.mediaType = MediaType.parse(content.getType());
+        this.isChunked = isChunked;
+        this.isGzipped = isGzipped;
+    }
+
+    public boolean isGzipped() {
+        return isGzipped;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mediaType;
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return isChunked || isGzipped ? -1 : content.getLength();
+    }
+
+    @Override
+    public void writeTo(@NonNull final BufferedSink sink) throws IOException {
+        if (!isGzipped) {
+            content.writeTo(sink.outputStream());
+            sink.flush();
+            return;
+        }
+        final BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+        content.writeTo(gzipSink.outputStream());
+        gzipSink.close();
+    }
+
+}
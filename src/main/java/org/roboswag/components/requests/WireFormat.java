@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.util.ObjectParser;
+import com.squareup.okhttp.MediaType;
+
+/**
+ * Format of request and response content with JSON data model: text JSON or binary formats like CBOR.
+ * Format is defined by media type that is used for content negotiation and by factory of parsers and generators.
+ */
+public class WireFormat {
+
+    @NonNull
+    public static final WireFormat JSON = new WireFormat(Json.MEDIA_TYPE, AbstractJsonRequest.DEFAULT_JSON_FACTORY);
+
+    private static final String CBOR_MEDIA_TYPE = "application/cbor";
+
+    @Nullable
+    private static WireFormat cbor;
+
+    /* Returns CBOR format. Application should have jackson-dataformat-cbor dependency to use it.
+     * Gain depends on payload (mostly numbers and repeated keys), so compare response bytes and parse time
+     * of RequestMetrics for both formats before switching endpoint to CBOR */
+    @NonNull
+    public static WireFormat getCbor() {
+        synchronized (WireFormat.class) {
+            if (cbor == null) {
+                cbor = new WireFormat(CBOR_MEDIA_TYPE, new JacksonStreamingFactory(new CBORFactory()));
+            }
+            return cbor;
+        }
+    }
+
+    @NonNull
+    private final String mediaType;
+    @NonNull
+    private final MediaType parsedMediaType;
+    @NonNull
+    private final JsonFactory jsonFactory;
+
+    public WireFormat(@NonNull final String mediaType, @NonNull final JsonFactory jsonFactory) {
+        this.mediaType = mediaType;
+        this.parsedMediaType = MediaType.parse(mediaType);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @NonNull
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    @NonNull
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+
+    /* Returns true if content type is content type of this format. Parameters like charset are ignored */
+    public boolean matches(@Nullable final MediaType contentType) {
+        return contentType != null
+                && parsedMediaType.type().equalsIgnoreCase(contentType.type())
+                && parsedMediaType.subtype().equalsIgnoreCase(contentType.subtype());
+    }
+
+    /* Returns parser of response type. Generated JsonAdapter is used if response type has it, else reflection */
+    @NonNull
+    public ObjectParser getParser(@NonNull final Class<?> responseType) {
+        final JsonAdapter<?> adapter = JsonAdapters.get(responseType);
+        return adapter != null ? new JsonAdapterObjectParser(jsonFactory, adapter) : jsonFactory.createJsonObjectParser();
+    }
+
+    @NonNull
+    public AbstractHttpContent createContent(@NonNull final Object data) {
+        return new WireFormatHttpContent(this, data);
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright (c) 2015 RoboSwag (Gavriil Sitnikov, Vsevolod Ivanov)
+ *
+ *  This file is part of RoboSwag library.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.roboswag.components.requests;
+
+import android.support.annotation.NonNull;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.json.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content that is serialized in some {@link WireFormat}. Generated {@link JsonAdapter} is used if data class has it, else reflection.
+ */
+public class WireFormatHttpContent extends AbstractHttpContent {
+
+    @NonNull
+    private final WireFormat wireFormat;
+    @NonNull
+    private final Object data;
+
+    public WireFormatHttpContent(@NonNull final WireFormat wireFormat, @NonNull final Object data) {
+        super(wireFormat.getMediaType());
+        this.wireFormat = wireFormat;
+        this.data = data;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void writeTo(@NonNull final OutputStream out) throws IOException {
+        final JsonGenerator generator = wireFormat.getJsonFactory().createJsonGenerator(out, getCharset());
+        final JsonAdapter<Object> adapter = JsonAdapters.get((Class<Object>) data.getClass());
+        if (adapter != null) {
+            adapter.write(generator, data);
+        } else {
+            generator.serialize(data);
+        }
+        generator.flush();
+    }
+
+}